@@ -0,0 +1,86 @@
+package data.factory;
+
+import cache.SymbolIndex;
+import com.google.common.collect.ImmutableSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import stockstream.computer.AssetComputer;
+import utils.SymbolTrie;
+
+import java.lang.reflect.Field;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Compares the scanning CommandFactory against the split/valueOf parser it replaced on a mix of trade votes,
+ * wallet orders and chatter that is not a command.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CommandFactoryBenchmark {
+
+    private static final String[] VOTES = {
+            "!buy aapl", "!sell TSLA", "!skip", "!hodl", "!faster", "!orders", "!amd", "!buy aapl 1",
+            "#buy 1 AMZN 4.21", "#sell 2 GOOG 1200.50", "#send player1 4.20", "#", "#w @mike", "#buy two AMD 11"
+    };
+
+    private static final Set<String> SYMBOLS = ImmutableSet.of("AAPL", "TSLA", "AMD", "AMZN", "GOOG", "GE", "F", "SPY");
+
+    private CommandFactory commandFactory;
+    private LegacyCommandFactory legacyCommandFactory;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws ReflectiveOperationException {
+        final AssetComputer assetComputer = new AssetComputer() {
+            @Override
+            public boolean isSymbol(final String symbol) {
+                return SYMBOLS.contains(symbol);
+            }
+        };
+
+        final SymbolIndex symbolIndex = new SymbolIndex();
+        ((AtomicReference<SymbolTrie>) field(SymbolIndex.class, "symbolTrie").get(symbolIndex)).set(new SymbolTrie(SYMBOLS));
+
+        commandFactory = new CommandFactory();
+        field(CommandFactory.class, "symbolIndex").set(commandFactory, symbolIndex);
+
+        legacyCommandFactory = new LegacyCommandFactory(assetComputer);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(14)
+    public void scanner(final Blackhole blackhole) {
+        for (final String vote : VOTES) {
+            blackhole.consume(commandFactory.constructTradeCommand(vote));
+            blackhole.consume(commandFactory.constructWalletCommand(vote));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(14)
+    public void legacy(final Blackhole blackhole) {
+        for (final String vote : VOTES) {
+            blackhole.consume(legacyCommandFactory.constructTradeCommand(vote));
+            blackhole.consume(safely(() -> legacyCommandFactory.constructWalletCommand(vote)));
+        }
+    }
+
+    private static Field field(final Class<?> type, final String name) throws NoSuchFieldException {
+        final Field field = type.getDeclaredField(name);
+        field.setAccessible(true);
+        return field;
+    }
+
+    private static Object safely(final Supplier<Object> parse) {
+        try {
+            return parse.get();
+        } catch (final NumberFormatException e) {
+            return e;
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package network.gateway.twitch;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Router throughput over a recorded mix of chat lines. Handlers only count the message, so this measures
+ * classification and tokenization alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ChatRouterBenchmark {
+
+    private String[] chatMix;
+    private ChatRouter chatRouter;
+    private int handled;
+
+    @Setup
+    public void setup() throws IOException {
+        try (final BufferedReader reader = new BufferedReader(new InputStreamReader(getClass().getResourceAsStream("/chat-mix.txt"), StandardCharsets.UTF_8))) {
+            final List<String> lines = reader.lines().collect(Collectors.toList());
+            chatMix = lines.toArray(new String[lines.size()]);
+        }
+
+        chatRouter = new ChatRouter().withActivityListener(this::count)
+                                     .withCommandListener(this::count)
+                                     .withRoute("!orders", this::count)
+                                     .withRoute("!balance", this::count)
+                                     .withRoute("!last", this::count)
+                                     .withRoute("!robinhood", this::count)
+                                     .withRoute("#", this::count)
+                                     .withRoute("#w", this::count)
+                                     .withRoute("#wallet", this::count)
+                                     .withRoute("!score", this::count)
+                                     .withRoute("#last", this::count)
+                                     .withFallbackHandler(this::count);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(30)
+    public int routeChatMix() {
+        int commands = 0;
+        for (final String line : chatMix) {
+            if (chatRouter.route(line, "mike", "#stockstream", false)) {
+                commands++;
+            }
+        }
+        return commands + handled;
+    }
+
+    private void count(final Object routed) {
+        handled++;
+    }
+
+}
@@ -14,6 +14,36 @@ public class Config {
 
     public static final float MAX_INFLUENCED_BUY = 3000;
 
+    public static final boolean STREAMING_VOTE_INGESTION = true;
+
+    public static final long STANDINGS_PUBLISH_INTERVAL_MILLIS = 1000;
+
+    public static final int STANDINGS_TOP_CANDIDATES = 5;
+
+    public static final int WALLET_ENGINE_THREADS = 4;
+
+    public static final boolean BATCH_WALLET_BUY_ORDERS = true;
+
+    public static final int CHAT_MESSAGE_MAX_LENGTH = 500;
+
+    public static final long OUTBOUND_CHAT_INTERVAL_MILLIS = 1500;
+
+    public static final long MENTION_COALESCE_WINDOW_MILLIS = 1500;
+
+    public static final long GLOBAL_RESPONSE_TTL_MILLIS = 5000;
+
+    public static final int WALLET_VIEW_CACHE_PLAYERS = 5000;
+
+    public static final int WALLET_VIEW_TTL_MINUTES = 10;
+
+    public static final int MARKET_CALENDAR_BUSINESS_DAYS = 5;
+
+    public static final int MARKET_CALENDAR_REFRESH_MINUTES = 60;
+
+    public static final String PLAYER_VOTE_SPILL_FILE = "player-votes.spill.jsonl";
+
+    public static final String WALLET_TRANSFER_LEDGER_FILE = "wallet-transfers.jsonl";
+
     public static final Set<String> TWITCH_CHANNELS = ImmutableSet.of("#stockstream", "#moneytesting");
 
     public static final String RH_UN = System.getenv("ROBINHOOD_USERNAME");
@@ -1,7 +1,13 @@
 package application.spring;
 
+import application.AWSConfig;
+import application.Config;
+import network.gateway.aws.LocalOrderNotificationSink;
+import network.gateway.aws.OrderNotificationSink;
 import network.gateway.aws.OrderPublisher;
+import network.gateway.aws.PlayerVoteWriter;
 import network.gateway.aws.RoundPublisher;
+import network.gateway.aws.SnsOrderNotificationSink;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -13,9 +19,26 @@ public class AWSBeans {
         return new OrderPublisher();
     }
 
+    @Bean
+    public OrderNotificationSink orderNotificationSink() {
+        switch (Config.stage) {
+            case TEST:
+            case LOCAL: {
+                return new LocalOrderNotificationSink();
+            } default: {
+                return new SnsOrderNotificationSink(AWSConfig.ORDERS_SNS_ARN_MAP.get(Config.stage));
+            }
+        }
+    }
+
     @Bean
     public RoundPublisher roundPublisher() {
         return new RoundPublisher();
     }
 
+    @Bean
+    public PlayerVoteWriter playerVoteWriter() {
+        return new PlayerVoteWriter();
+    }
+
 }
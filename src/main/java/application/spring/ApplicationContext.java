@@ -1,6 +1,10 @@
 package application.spring;
 
 import cache.LastOrderCache;
+import cache.MarketCalendar;
+import cache.QuoteCache;
+import cache.SymbolIndex;
+import cache.WalletViewCache;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -28,4 +32,24 @@ public class ApplicationContext {
         return new LastOrderCache();
     }
 
+    @Bean
+    public QuoteCache quoteCache() {
+        return new QuoteCache();
+    }
+
+    @Bean
+    public SymbolIndex symbolIndex() {
+        return new SymbolIndex();
+    }
+
+    @Bean
+    public MarketCalendar marketCalendar() {
+        return new MarketCalendar();
+    }
+
+    @Bean
+    public WalletViewCache walletViewCache() {
+        return new WalletViewCache();
+    }
+
 }
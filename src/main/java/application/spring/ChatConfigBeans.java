@@ -15,9 +15,6 @@ public class ChatConfigBeans {
     @Autowired
     private DispatcherBeans dispatcherBeans;
 
-    @Autowired
-    private EngineBeans engineBeans;
-
     // TEST CONFIG
     public org.pircbotx.Configuration testChannelConfiguration() {
         return new org.pircbotx.Configuration.Builder().setAutoNickChange(false)
@@ -25,9 +22,7 @@ public class ChatConfigBeans {
                                                        .setName("stockstream")
                                                        .addServer("localhost")
                                                        .addAutoJoinChannels(Config.TWITCH_CHANNELS)
-                                                       .addListener(dispatcherBeans.walletBot())
-                                                       .addListener(dispatcherBeans.responder())
-                                                       .addListener(engineBeans.voteEngine())
+                                                       .addListener(dispatcherBeans.chatDispatcher())
                                                        .setAutoReconnect(true)
                                                        .setAutoReconnectDelay(5 * 1000)
                                                        .buildConfiguration();
@@ -40,9 +35,7 @@ public class ChatConfigBeans {
                                                        .setName("stockstream")
                                                        .addServer("localhost")
                                                        .addAutoJoinChannels(Config.TWITCH_CHANNELS)
-                                                       .addListener(dispatcherBeans.walletBot())
-                                                       .addListener(dispatcherBeans.responder())
-                                                       .addListener(engineBeans.voteEngine())
+                                                       .addListener(dispatcherBeans.chatDispatcher())
                                                        .setAutoReconnect(true)
                                                        .setAutoReconnectDelay(5 * 1000)
                                                        .buildConfiguration();
@@ -60,9 +53,7 @@ public class ChatConfigBeans {
                                                        .setServerPassword("oauth:wee12rhgskga3qf1iq4rbvq0f61i7s")
                                                        .addServer("irc.chat.twitch.tv")
                                                        .addAutoJoinChannel("#michrob")
-                                                       .addListener(dispatcherBeans.walletBot())
-                                                       .addListener(dispatcherBeans.responder())
-                                                       .addListener(engineBeans.voteEngine())
+                                                       .addListener(dispatcherBeans.chatDispatcher())
                                                        .setAutoReconnect(true)
                                                        .setAutoReconnectDelay(5 * 1000)
                                                        .buildConfiguration();
@@ -80,9 +71,7 @@ public class ChatConfigBeans {
                                                        .setServerPassword("oauth:wee12rhgskga3qf1iq4rbvq0f61i7s")
                                                        .addServer("irc.chat.twitch.tv")
                                                        .addAutoJoinChannels(Config.TWITCH_CHANNELS)
-                                                       .addListener(dispatcherBeans.walletBot())
-                                                       .addListener(dispatcherBeans.responder())
-                                                       .addListener(engineBeans.voteEngine())
+                                                       .addListener(dispatcherBeans.chatDispatcher())
                                                        .setAutoReconnect(true)
                                                        .setAutoReconnectDelay(5 * 1000)
                                                        .buildConfiguration();
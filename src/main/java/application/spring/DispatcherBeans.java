@@ -1,6 +1,9 @@
 package application.spring;
 
 import logic.wallet.WalletBot;
+import network.gateway.twitch.ChatDispatcher;
+import network.gateway.twitch.MentionCoalescer;
+import network.gateway.twitch.OutboundChat;
 import network.gateway.twitch.Responder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -17,11 +20,26 @@ public class DispatcherBeans {
         return new Responder();
     }
 
+    @Bean
+    public OutboundChat outboundChat() {
+        return new OutboundChat();
+    }
+
+    @Bean
+    public MentionCoalescer mentionCoalescer() {
+        return new MentionCoalescer();
+    }
+
     @Bean
     public WalletBot walletBot() {
         return new WalletBot();
     }
 
+    @Bean
+    public ChatDispatcher chatDispatcher() {
+        return new ChatDispatcher();
+    }
+
     @Bean
     public VoteBot voteBot() {
         return new VoteBot();
@@ -2,10 +2,14 @@ package application.spring;
 
 import logic.game.GameClock;
 import logic.game.GameEngine;
+import logic.game.QuotePrefetcher;
+import logic.game.SystemGameTimeSource;
 import logic.voting.SpeedElection;
 import logic.voting.TradingElection;
 import logic.voting.VoteEngine;
 import logic.voting.WalletElection;
+import logic.wallet.LocalLockWalletStore;
+import logic.wallet.TransferLedger;
 import logic.wallet.WalletEngine;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -36,6 +40,11 @@ public class EngineBeans {
         return new GameClock();
     }
 
+    @Bean
+    public SystemGameTimeSource gameTimeSource() {
+        return new SystemGameTimeSource();
+    }
+
     @Bean
     public VoteEngine voteEngine() {
         return new VoteEngine();
@@ -51,4 +60,19 @@ public class EngineBeans {
         return new WalletEngine();
     }
 
+    @Bean
+    public LocalLockWalletStore walletStore() {
+        return new LocalLockWalletStore();
+    }
+
+    @Bean
+    public TransferLedger transferLedger() {
+        return new TransferLedger();
+    }
+
+    @Bean
+    public QuotePrefetcher quotePrefetcher() {
+        return new QuotePrefetcher();
+    }
+
 }
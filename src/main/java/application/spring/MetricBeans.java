@@ -1,15 +1,39 @@
 package application.spring;
 
+import application.Config;
+import network.gateway.aws.CloudWatchMetricSink;
+import network.gateway.aws.InMemoryMetricSink;
+import network.gateway.aws.LogMetricSink;
 import network.gateway.aws.MetricPublisher;
+import network.gateway.aws.MetricSink;
+import network.gateway.web.LatencyEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class MetricBeans {
 
+    @Bean
+    public MetricSink metricSink() {
+        switch (Config.stage) {
+            case TEST: {
+                return new InMemoryMetricSink();
+            } case LOCAL: {
+                return new LogMetricSink();
+            } default: {
+                return new CloudWatchMetricSink();
+            }
+        }
+    }
+
     @Bean
     public MetricPublisher metricPublisher() {
         return new MetricPublisher();
     }
 
+    @Bean
+    public LatencyEndpoint latencyEndpoint() {
+        return new LatencyEndpoint();
+    }
+
 }
@@ -4,8 +4,8 @@ package cache;
 import data.RoundResult;
 import data.factory.ResponseFactory;
 import lombok.Getter;
+import network.gateway.twitch.OutboundChat;
 import org.springframework.beans.factory.annotation.Autowired;
-import stockstream.twitch.TwitchChat;
 import utils.GameUtil;
 
 import java.util.Map;
@@ -20,7 +20,7 @@ public class LastOrderCache {
     private GameUtil gameUtil;
 
     @Autowired
-    private TwitchChat twitchChat;
+    private OutboundChat outboundChat;
 
     @Getter
     private String lastOrder = "";
@@ -44,7 +44,7 @@ public class LastOrderCache {
 
         lastOrder = responseFactory.constructResponse(roundResult.getOrderResult().get(), votesReceived);
 
-        twitchChat.broadcastMessage(lastOrder);
+        outboundChat.broadcast(lastOrder, OutboundChat.Priority.ROUND_RESULT);
     }
 
 
@@ -0,0 +1,118 @@
+package cache;
+
+import application.Config;
+import com.cheddar.robinhood.data.MarketState;
+import com.google.common.collect.ImmutableSortedMap;
+import lombok.extern.slf4j.Slf4j;
+import org.joda.time.DateTime;
+import org.joda.time.LocalDate;
+import org.springframework.beans.factory.annotation.Autowired;
+import stockstream.cache.BrokerCache;
+import stockstream.computer.TimeComputer;
+import stockstream.logic.Scheduler;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * MarketState for today and the next few business days, loaded from the broker once and refreshed in the
+ * background, so round scheduling answers open and close questions from memory. Days outside the window are
+ * loaded through and kept until the next refresh.
+ */
+@Slf4j
+public class MarketCalendar {
+
+    @Autowired
+    private BrokerCache brokerCache;
+
+    @Autowired
+    private TimeComputer timeComputer;
+
+    @Autowired
+    private Scheduler scheduler;
+
+    private final AtomicReference<ImmutableSortedMap<LocalDate, MarketState>> dayToMarketState =
+            new AtomicReference<>(ImmutableSortedMap.of());
+
+    @PostConstruct
+    public void init() {
+        scheduler.scheduleJob(this::refresh, 0, Config.MARKET_CALENDAR_REFRESH_MINUTES, TimeUnit.MINUTES);
+    }
+
+    public MarketState getMarketState(final DateTime dateTime) {
+        final LocalDate day = dateTime.toLocalDate();
+
+        final MarketState cachedState = dayToMarketState.get().get(day);
+        if (cachedState != null) {
+            return cachedState;
+        }
+
+        final MarketState marketState = brokerCache.getMarketState(dateTime);
+        remember(day, marketState);
+        return marketState;
+    }
+
+    /**
+     * @return the MarketState of the first business day after the day of dateTime.
+     */
+    public MarketState findNextBusinessDay(final DateTime dateTime) {
+        final LocalDate day = dateTime.toLocalDate();
+
+        final Optional<MarketState> cachedState = dayToMarketState.get().tailMap(day, false).values().stream()
+                                                                  .filter(MarketState::isOpenThisDay)
+                                                                  .findFirst();
+        if (cachedState.isPresent()) {
+            return cachedState.get();
+        }
+
+        final MarketState marketState = timeComputer.findNextBusinessDay(dateTime);
+        marketState.getExtendedOpenTime().ifPresent(openTime -> remember(openTime.toLocalDate(), marketState));
+        return marketState;
+    }
+
+    public boolean isOpenNow() {
+        return getMarketState(new DateTime()).isOpenNow();
+    }
+
+    /**
+     * Builds the window off to the side and swaps it in, keeping the old one if the broker call fails.
+     */
+    public void refresh() {
+        final long refreshStart = System.currentTimeMillis();
+        final DateTime today = new DateTime();
+
+        try {
+            final Map<LocalDate, MarketState> window = new TreeMap<>();
+            window.put(today.toLocalDate(), brokerCache.getMarketState(today));
+
+            DateTime cursor = today;
+            for (int i = 0; i < Config.MARKET_CALENDAR_BUSINESS_DAYS; ++i) {
+                final MarketState nextBusinessDay = timeComputer.findNextBusinessDay(cursor);
+                final Optional<DateTime> openTime = nextBusinessDay.getExtendedOpenTime();
+                if (!openTime.isPresent() || !openTime.get().toLocalDate().isAfter(cursor.toLocalDate())) {
+                    break;
+                }
+                window.put(openTime.get().toLocalDate(), nextBusinessDay);
+                cursor = openTime.get();
+            }
+
+            dayToMarketState.set(ImmutableSortedMap.copyOf(window));
+            log.info("Loaded market calendar for {} days in {}ms.", window.size(), System.currentTimeMillis() - refreshStart);
+        } catch (final RuntimeException e) {
+            log.warn("Could not refresh market calendar, keeping {} cached days. {}", dayToMarketState.get().size(), e.getMessage(), e);
+        }
+    }
+
+    private void remember(final LocalDate day, final MarketState marketState) {
+        dayToMarketState.updateAndGet(window -> {
+            final Map<LocalDate, MarketState> updatedWindow = new TreeMap<>(window);
+            updatedWindow.put(day, marketState);
+            return ImmutableSortedMap.copyOf(updatedWindow);
+        });
+    }
+
+}
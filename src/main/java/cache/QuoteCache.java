@@ -0,0 +1,151 @@
+package cache;
+
+import com.cheddar.robinhood.data.Quote;
+import com.cheddar.robinhood.exception.RobinhoodException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import network.gateway.aws.MetricPublisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import stockstream.computer.AssetComputer;
+import stockstream.logic.Scheduler;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short lived quote cache. Concurrent misses for a symbol share one in-flight fetch, and misses for different
+ * symbols arriving within a short window are batched into a single broker request.
+ */
+@Slf4j
+public class QuoteCache {
+
+    @Autowired
+    private AssetComputer assetComputer;
+
+    @Autowired
+    private MetricPublisher metricPublisher;
+
+    @Autowired
+    private Scheduler scheduler;
+
+    private static final long QUOTE_TTL_MILLIS = 3000;
+    private static final long BATCH_WINDOW_MILLIS = 25;
+    private static final long FETCH_TIMEOUT_MILLIS = 5000;
+
+    @Getter
+    @AllArgsConstructor
+    private static class CachedQuote {
+        private final Quote quote;
+        private final long fetchedAt;
+    }
+
+    private final Map<String, CachedQuote> symbolToQuote = new ConcurrentHashMap<>();
+
+    private final Map<String, CompletableFuture<Quote>> inFlightFetches = new ConcurrentHashMap<>();
+    private final Queue<String> pendingSymbols = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean fetchScheduled = new AtomicBoolean(false);
+    private final ScheduledExecutorService fetchExecutor = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "quoteFetch"));
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        scheduler.scheduleJob(this::publishMetrics, 60, 60, TimeUnit.SECONDS);
+    }
+
+    public Optional<Quote> getFreshQuote(final String symbol, final long maxAgeMillis) {
+        final CachedQuote cachedQuote = symbolToQuote.get(symbol);
+        if (cachedQuote == null || System.currentTimeMillis() - cachedQuote.getFetchedAt() > maxAgeMillis) {
+            return Optional.empty();
+        }
+        return Optional.of(cachedQuote.getQuote());
+    }
+
+    public Quote getQuote(final String symbol) throws RobinhoodException {
+        final Optional<Quote> cachedQuote = getFreshQuote(symbol, QUOTE_TTL_MILLIS);
+        if (cachedQuote.isPresent()) {
+            hits.incrementAndGet();
+            return cachedQuote.get();
+        }
+
+        final CompletableFuture<Quote> fetch = new CompletableFuture<>();
+        final CompletableFuture<Quote> existingFetch = inFlightFetches.putIfAbsent(symbol, fetch);
+        if (existingFetch != null) {
+            coalesced.incrementAndGet();
+            return awaitQuote(symbol, existingFetch);
+        }
+
+        misses.incrementAndGet();
+        pendingSymbols.add(symbol);
+        if (fetchScheduled.compareAndSet(false, true)) {
+            fetchExecutor.schedule(this::fetchPendingQuotes, BATCH_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        return awaitQuote(symbol, fetch);
+    }
+
+    public Map<String, Quote> refreshQuotes(final Set<String> symbols) throws RobinhoodException {
+        final long fetchedAt = System.currentTimeMillis();
+        final Map<String, Quote> quotes = assetComputer.loadSymbolToQuote(symbols);
+        quotes.forEach((symbol, quote) -> symbolToQuote.put(symbol, new CachedQuote(quote, fetchedAt)));
+        return quotes;
+    }
+
+    private void fetchPendingQuotes() {
+        fetchScheduled.set(false);
+
+        final Set<String> symbols = new HashSet<>();
+        for (String symbol = pendingSymbols.poll(); symbol != null; symbol = pendingSymbols.poll()) {
+            symbols.add(symbol);
+        }
+
+        if (symbols.isEmpty()) {
+            return;
+        }
+
+        try {
+            final Map<String, Quote> quotes = refreshQuotes(symbols);
+            symbols.forEach(symbol -> {
+                final CompletableFuture<Quote> fetch = inFlightFetches.remove(symbol);
+                final Quote quote = quotes.get(symbol);
+                if (quote == null) {
+                    fetch.completeExceptionally(new RobinhoodException("No quote for " + symbol));
+                } else {
+                    fetch.complete(quote);
+                }
+            });
+        } catch (final RobinhoodException | RuntimeException e) {
+            log.warn("Could not fetch quotes for {}. {}", symbols, e.getMessage(), e);
+            symbols.forEach(symbol -> inFlightFetches.remove(symbol).completeExceptionally(e));
+        }
+    }
+
+    private Quote awaitQuote(final String symbol, final CompletableFuture<Quote> fetch) throws RobinhoodException {
+        try {
+            return fetch.get(FETCH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RobinhoodException) {
+                throw (RobinhoodException) e.getCause();
+            }
+            throw new RobinhoodException("Quote fetch failed for " + symbol + ": " + e.getCause().getMessage());
+        } catch (final TimeoutException e) {
+            throw new RobinhoodException("Timed out fetching quote for " + symbol);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RobinhoodException("Interrupted fetching quote for " + symbol);
+        }
+    }
+
+    private void publishMetrics() {
+        metricPublisher.publishMetric("QuoteCacheHits", hits.getAndSet(0));
+        metricPublisher.publishMetric("QuoteCacheMisses", misses.getAndSet(0));
+        metricPublisher.publishMetric("QuoteCacheCoalesced", coalesced.getAndSet(0));
+    }
+
+}
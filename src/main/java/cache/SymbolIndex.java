@@ -0,0 +1,82 @@
+package cache;
+
+import com.google.common.collect.ImmutableSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import stockstream.cache.InstrumentCache;
+import stockstream.computer.AssetComputer;
+import stockstream.logic.Scheduler;
+import utils.SymbolTrie;
+
+import javax.annotation.PostConstruct;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Case-insensitive symbol lookup over the instrument universe. InstrumentCache does not announce its refreshes, so
+ * its symbol set is polled and compared by content; the trie is rebuilt off to the side whenever the content differs
+ * and swapped in atomically.
+ */
+@Slf4j
+public class SymbolIndex {
+
+    @Autowired
+    private InstrumentCache instrumentCache;
+
+    @Autowired
+    private AssetComputer assetComputer;
+
+    @Autowired
+    private Scheduler scheduler;
+
+    private final AtomicReference<SymbolTrie> symbolTrie = new AtomicReference<>(SymbolTrie.EMPTY);
+
+    private ImmutableSet<String> indexedSymbols = ImmutableSet.of();
+
+    @PostConstruct
+    public void init() {
+        scheduler.scheduleJob(this::rebuildIfChanged, 0, 60, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @return the canonical symbol spelled by text[start, end) ignoring case, or null if it is not a symbol.
+     */
+    public String find(final CharSequence text, final int start, final int end) {
+        final SymbolTrie trie = symbolTrie.get();
+        if (!trie.isEmpty()) {
+            return trie.find(text, start, end);
+        }
+
+        final String candidate = text.subSequence(start, end).toString().toUpperCase();
+        return assetComputer.isSymbol(candidate) ? candidate : null;
+    }
+
+    public String find(final CharSequence text) {
+        return find(text, 0, text.length());
+    }
+
+    public boolean isSymbol(final CharSequence text) {
+        return find(text) != null;
+    }
+
+    private synchronized void rebuildIfChanged() {
+        final Set<String> validSymbols = instrumentCache.getValidSymbols();
+        if (validSymbols == null || validSymbols.isEmpty()) {
+            return;
+        }
+
+        final ImmutableSet<String> currentSymbols = ImmutableSet.copyOf(validSymbols);
+        if (currentSymbols.equals(indexedSymbols)) {
+            return;
+        }
+
+        final long buildStart = System.currentTimeMillis();
+        final SymbolTrie rebuiltTrie = new SymbolTrie(currentSymbols);
+        symbolTrie.set(rebuiltTrie);
+        indexedSymbols = currentSymbols;
+
+        log.info("Indexed {} symbols in {}ms.", rebuiltTrie.size(), System.currentTimeMillis() - buildStart);
+    }
+
+}
@@ -0,0 +1,100 @@
+package cache;
+
+import application.Config;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import network.gateway.aws.MetricPublisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import stockstream.computer.AssetComputer;
+import stockstream.computer.WalletComputer;
+import stockstream.database.Asset;
+import stockstream.database.Wallet;
+import stockstream.database.WalletRegistry;
+import stockstream.logic.Scheduler;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What a player's wallet looks like to chat: the wallet row, buying power, spending balance and owned assets.
+ * WalletEngine drops a player's view whenever it places or updates one of their wallet orders and refreshes it
+ * after writing their wallet, and RoundPublisher drops the views of a round's voters, so read-only wallet commands
+ * are answered without the database. Bounded to the most recently active players.
+ */
+@Slf4j
+public class WalletViewCache {
+
+    @Data
+    @AllArgsConstructor
+    public static class WalletView {
+        private final Wallet wallet;
+        private final double buyingPower;
+        private final double spendingBalance;
+        private final Collection<Asset> assets;
+    }
+
+    @Autowired
+    private WalletRegistry walletRegistry;
+
+    @Autowired
+    private WalletComputer walletComputer;
+
+    @Autowired
+    private AssetComputer assetComputer;
+
+    @Autowired
+    private MetricPublisher metricPublisher;
+
+    @Autowired
+    private Scheduler scheduler;
+
+    private final Cache<String, WalletView> playerToView = CacheBuilder.newBuilder()
+                                                                       .maximumSize(Config.WALLET_VIEW_CACHE_PLAYERS)
+                                                                       .expireAfterWrite(Config.WALLET_VIEW_TTL_MINUTES, TimeUnit.MINUTES)
+                                                                       .recordStats()
+                                                                       .build();
+
+    @PostConstruct
+    public void init() {
+        scheduler.scheduleJob(this::publishMetrics, 60, 60, TimeUnit.SECONDS);
+    }
+
+    public WalletView getView(final String player) throws ExecutionException {
+        return playerToView.get(player, () -> loadView(player));
+    }
+
+    /**
+     * Reloads the player's view after their wallet was written.
+     */
+    public void refresh(final String player) {
+        try {
+            playerToView.put(player, loadView(player));
+        } catch (final Exception e) {
+            log.warn("Could not refresh wallet view of {}. {}", player, e.getMessage(), e);
+            playerToView.invalidate(player);
+        }
+    }
+
+    public void invalidate(final String player) {
+        playerToView.invalidate(player);
+    }
+
+    private WalletView loadView(final String player) throws Exception {
+        final Wallet wallet = walletRegistry.getWallet(player);
+        return new WalletView(wallet,
+                              walletComputer.computeBuyingPower(wallet),
+                              walletComputer.computeSpendingBalance(wallet),
+                              assetComputer.getAssetsOwnedByPlayer(player));
+    }
+
+    private void publishMetrics() {
+        metricPublisher.publishMetric("WalletViewCacheHitRate", playerToView.stats().hitRate());
+        metricPublisher.publishMetric("WalletViewCacheSize", playerToView.size());
+    }
+
+}
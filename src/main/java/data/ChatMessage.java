@@ -0,0 +1,74 @@
+package data;
+
+import com.google.common.collect.ImmutableList;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import stockstream.data.Voter;
+
+import java.util.Optional;
+
+/**
+ * A chat command tokenized once on arrival: "!buy AAPL" has prefix '!', command "buy" and args ["AAPL"].
+ */
+@Data
+@AllArgsConstructor
+public class ChatMessage {
+    private final String raw;
+    private final String normalized;
+    private final char prefix;
+    private final String command;
+    private final ImmutableList<String> args;
+    private final Voter voter;
+    private final String channel;
+    private final long timestamp;
+
+    /**
+     * @param line chat line starting with the prefix once trimmed. Tokens are split on any whitespace.
+     */
+    public static ChatMessage tokenize(final String line, final Voter voter, final String channel, final long timestamp) {
+        final String raw = line.trim();
+        final String normalized = raw.toLowerCase();
+
+        int commandEnd = 1;
+        while (commandEnd < raw.length() && !Character.isWhitespace(raw.charAt(commandEnd))) {
+            ++commandEnd;
+        }
+        final String command = normalized.substring(1, commandEnd);
+
+        final ImmutableList.Builder<String> args = ImmutableList.builder();
+        int tokenStart = -1;
+        for (int i = commandEnd; i <= raw.length(); ++i) {
+            final boolean atSeparator = i == raw.length() || Character.isWhitespace(raw.charAt(i));
+            if (atSeparator && tokenStart >= 0) {
+                args.add(raw.substring(tokenStart, i));
+                tokenStart = -1;
+            } else if (!atSeparator && tokenStart < 0) {
+                tokenStart = i;
+            }
+        }
+
+        return new ChatMessage(raw, normalized, raw.charAt(0), command, args.build(), voter, channel, timestamp);
+    }
+
+    /**
+     * Route key used by the handler table, e.g. "!orders" or "#last".
+     */
+    public String getRoute() {
+        return prefix + command;
+    }
+
+    /**
+     * The player named by a single "@player" argument, lower cased.
+     */
+    public Optional<String> getMention() {
+        if (args.size() != 1 || !args.get(0).startsWith("@")) {
+            return Optional.empty();
+        }
+        return Optional.of(args.get(0).substring(1).toLowerCase());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s:[%s]", voter.getPlayerId(), raw);
+    }
+}
@@ -0,0 +1,28 @@
+package data;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Stages of a trading round, from a viewer's vote arriving over IRC to the round being persisted.
+ */
+@Getter
+@AllArgsConstructor
+public enum LatencyStage {
+    IRC_TO_ENQUEUE("IrcToEnqueueLatency"),
+    ENQUEUE_TO_TALLY("EnqueueToTallyLatency"),
+    CLOSE_TO_EXECUTE("CloseToExecuteLatency"),
+    QUOTE_FETCH("QuoteFetchLatency"),
+    VOTE_PRE_PROCESS("VotePreProcessLatency"),
+    ROUND_PRE_PROCESS("RoundPreProcessLatency"),
+    BROKER_BUY("BrokerBuyLatency"),
+    BROKER_SELL("BrokerSellLatency"),
+    ROUND_PERSIST("RoundPersistLatency"),
+    ROUND_FREEZE("RoundFreezeLatency"),
+    ROUND_EXECUTE("RoundExecuteLatency"),
+    ROUND_OVER_LIMIT("RoundOverLimitLatency"),
+    ROUND_PUBLISH("RoundPublishLatency"),
+    ROUND_RESULT("RoundResultLatency");
+
+    private final String metricName;
+}
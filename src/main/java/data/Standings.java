@@ -0,0 +1,30 @@
+package data;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import stockstream.data.TradeCommand;
+
+@Data
+@AllArgsConstructor
+public class Standings {
+
+    @Data
+    @AllArgsConstructor
+    public static class Entry {
+        private final TradeCommand tradeCommand;
+        private final long votes;
+        private final int voters;
+    }
+
+    private final long version;
+    private final long timestamp;
+    private final ImmutableList<Entry> tradeStandings;
+    private final ImmutableMap<String, Integer> speedVotes;
+
+    @Override
+    public String toString() {
+        return String.format("version:[%s] tradeStandings:[%s] speedVotes:[%s]", version, tradeStandings.size(), speedVotes);
+    }
+}
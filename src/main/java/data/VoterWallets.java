@@ -0,0 +1,37 @@
+package data;
+
+import com.google.common.collect.ImmutableMap;
+import lombok.AllArgsConstructor;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Buying power of the players backing the winning command, loaded once per round. The total comes from the set-level
+ * wallet computation, so voters without a wallet row still count towards it.
+ */
+@AllArgsConstructor
+public class VoterWallets {
+
+    public static final VoterWallets EMPTY = new VoterWallets(0, ImmutableMap.of());
+
+    private final double totalBuyingPower;
+
+    private final ImmutableMap<String, Double> playerToBuyingPower;
+
+    public double getTotalBuyingPower() {
+        return totalBuyingPower;
+    }
+
+    public Set<String> getPlayersWithoutBuyingPower() {
+        return playerToBuyingPower.entrySet().stream()
+                                  .filter(entry -> entry.getValue() <= 0)
+                                  .map(entry -> entry.getKey())
+                                  .collect(Collectors.toSet());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("totalBuyingPower:[%s] playerToBuyingPower:[%s]", totalBuyingPower, playerToBuyingPower.size());
+    }
+}
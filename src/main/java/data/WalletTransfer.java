@@ -0,0 +1,16 @@
+package data;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletTransfer {
+    private long id;
+    private String fromPlayer;
+    private String toPlayer;
+    private double dollars;
+    private long timestamp;
+}
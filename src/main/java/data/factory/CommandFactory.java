@@ -1,9 +1,9 @@
 package data.factory;
 
 
+import cache.SymbolIndex;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import stockstream.computer.AssetComputer;
 import stockstream.data.TradeAction;
 import stockstream.data.TradeCommand;
 import stockstream.data.WalletAction;
@@ -11,15 +11,26 @@ import stockstream.data.WalletCommand;
 
 import java.util.Optional;
 
+/**
+ * Parses chat votes into commands. Runs once per vote, so the parsing is a single scan over the input: tokens
+ * are tracked by index, actions are matched against precomputed tables, numbers are parsed in place and symbols
+ * come back canonical from the SymbolIndex. The only string created is the player name of a #send.
+ */
 public class CommandFactory {
 
     private static final int REJECT_LENGTH = 15;
 
+    private static final TradeAction[] TRADE_ACTIONS = TradeAction.values();
+    private static final WalletAction[] WALLET_ACTIONS = WalletAction.values();
+
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+
     @Autowired
-    private AssetComputer assetComputer;
+    private SymbolIndex symbolIndex;
 
     public Optional<TradeCommand> constructTradeCommand(final String input) {
-        if (!input.startsWith("!")) {
+        if (input.isEmpty() || input.charAt(0) != '!') {
             return Optional.empty();
         }
 
@@ -27,103 +38,237 @@ public class CommandFactory {
             return Optional.empty();
         }
 
-        final String message = input.trim().toUpperCase();
-
-        if ("!skip".equalsIgnoreCase(message) || "!hodl".equalsIgnoreCase(message)) {
-            return Optional.of(new TradeCommand(TradeAction.SKIP, StringUtils.EMPTY));
-        }
+        final int end = trimmedEnd(input);
 
-        final String[] tokens = message.split("\\s+");
+        final int actionEnd = tokenEnd(input, 0, end);
+        final int symbolStart = skipSpaces(input, actionEnd, end);
 
-        if (tokens.length != 2) {
+        if (symbolStart == end) {
+            if (matchesWord(input, 1, actionEnd, "skip") || matchesWord(input, 1, actionEnd, "hodl")) {
+                return Optional.of(new TradeCommand(TradeAction.SKIP, StringUtils.EMPTY));
+            }
             return Optional.empty();
         }
 
-        if (!this.assetComputer.isSymbol(tokens[1])) {
+        final int symbolEnd = tokenEnd(input, symbolStart, end);
+        if (symbolEnd != end) {
             return Optional.empty();
         }
 
-        final String commandString = tokens[0].substring(1);
-
-        TradeAction action = null;
-        try {
-            action = TradeAction.valueOf(commandString);
-        } catch (final IllegalArgumentException e) {
+        final TradeAction action = findAction(TRADE_ACTIONS, input, 1, actionEnd);
+        if (action == null) {
             return Optional.empty();
         }
 
-        final String symbol = tokens[1];
+        final String symbol = symbolIndex.find(input, symbolStart, symbolEnd);
+        if (symbol == null) {
+            return Optional.empty();
+        }
 
-        final TradeCommand newTradeCommand = new TradeCommand(action, symbol);
-        return Optional.of(newTradeCommand);
+        return Optional.of(new TradeCommand(action, symbol));
     }
 
     public Optional<WalletCommand> constructWalletCommand(final String input) {
-        if (!input.startsWith("#")) {
+        if (input.isEmpty() || input.charAt(0) != '#') {
             return Optional.empty();
         }
 
-        final String message = input.trim().toUpperCase();
+        final int end = trimmedEnd(input);
+        final int actionEnd = tokenEnd(input, 0, end);
 
-        if (message.startsWith("#SEND")) {
-            return constructSendCommand(message);
+        if (input.regionMatches(true, 1, "send", 0, 4)) {
+            return constructSendCommand(input, actionEnd, end);
         }
 
-        final String[] tokens = message.split("\\s+");
+        final int quantityStart = skipSpaces(input, actionEnd, end);
+        final int quantityEnd = tokenEnd(input, quantityStart, end);
+        final int symbolStart = skipSpaces(input, quantityEnd, end);
+        final int symbolEnd = tokenEnd(input, symbolStart, end);
+        final int limitStart = skipSpaces(input, symbolEnd, end);
+        final int limitEnd = tokenEnd(input, limitStart, end);
 
-        if (tokens.length != 4) {
+        if (symbolStart == symbolEnd || limitStart == limitEnd || limitEnd != end) {
             return Optional.empty();
         }
 
-        final String commandString = tokens[0].substring(1);
+        final WalletAction action = findAction(WALLET_ACTIONS, input, 1, actionEnd);
+        if (action == null) {
+            return Optional.empty();
+        }
 
+        final long quantity = parseInt(input, quantityStart, quantityEnd);
+        if (quantity == Long.MIN_VALUE) {
+            return Optional.empty();
+        }
 
-        WalletAction action = null;
-        try {
-            action = WalletAction.valueOf(commandString);
-        } catch (final IllegalArgumentException e) {
+        final String symbol = symbolIndex.find(input, symbolStart, symbolEnd);
+        if (symbol == null) {
             return Optional.empty();
         }
 
-        final String quantityString = tokens[1];
-        final Integer quantity = Integer.valueOf(quantityString);
+        final double limitValue = parseDecimal(input, limitStart, limitEnd);
+        if (Double.isNaN(limitValue)) {
+            return Optional.empty();
+        }
+
+        final WalletCommand newWalletCommand = new WalletCommand(action, (int) quantity, symbol, limitValue);
+        return Optional.of(newWalletCommand);
+    }
 
-        final String symbol = tokens[2];
-        if (!this.assetComputer.isSymbol(symbol)) {
+    private Optional<WalletCommand> constructSendCommand(final String input, final int actionEnd, final int end) {
+        if (actionEnd != 5) {
             return Optional.empty();
         }
 
-        final String limitString = tokens[3];
-        final Double limitValue = Double.valueOf(limitString);
+        final int playerStart = skipSpaces(input, actionEnd, end);
+        final int playerEnd = tokenEnd(input, playerStart, end);
+        final int limitStart = skipSpaces(input, playerEnd, end);
+        final int limitEnd = tokenEnd(input, limitStart, end);
+
+        if (playerStart == playerEnd || limitStart == limitEnd || limitEnd != end) {
+            return Optional.empty();
+        }
 
-        final WalletCommand newWalletCommand = new WalletCommand(action, quantity, symbol, limitValue);
+        final double limitValue = parseDecimal(input, limitStart, limitEnd);
+        if (Double.isNaN(limitValue)) {
+            return Optional.empty();
+        }
+
+        final String player = input.substring(playerStart, playerEnd).toLowerCase();
+
+        final WalletCommand newWalletCommand = new WalletCommand(WalletAction.SEND, 1, player, limitValue);
         return Optional.of(newWalletCommand);
     }
 
-    private Optional<WalletCommand> constructSendCommand(final String message) {
-        final String[] tokens = message.split("\\s+");
+    private static <T extends Enum<T>> T findAction(final T[] actions, final String input, final int start, final int end) {
+        for (final T action : actions) {
+            if (matchesWord(input, start, end, action.name())) {
+                return action;
+            }
+        }
+        return null;
+    }
+
+    private static boolean matchesWord(final String input, final int start, final int end, final String word) {
+        return end - start == word.length() && input.regionMatches(true, start, word, 0, word.length());
+    }
 
-        if (tokens.length != 3) {
-            return Optional.empty();
+    /**
+     * Same whitespace as the "\\s+" split this replaced.
+     */
+    private static boolean isSpace(final char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static int trimmedEnd(final String input) {
+        int end = input.length();
+        while (end > 0 && input.charAt(end - 1) <= ' ') {
+            --end;
         }
+        return end;
+    }
 
-        final String commandString = tokens[0].substring(1);
+    private static int skipSpaces(final String input, int index, final int end) {
+        while (index < end && isSpace(input.charAt(index))) {
+            ++index;
+        }
+        return index;
+    }
 
-        WalletAction action = null;
-        if ("send".equalsIgnoreCase(commandString)) {
-            action = WalletAction.SEND;
+    private static int tokenEnd(final String input, int index, final int end) {
+        while (index < end && !isSpace(input.charAt(index))) {
+            ++index;
         }
+        return index;
+    }
 
-        if (null == action) {
-            return Optional.empty();
+    /**
+     * @return the parsed value, or Long.MIN_VALUE if the token is not an int.
+     */
+    private static long parseInt(final String input, int index, final int end) {
+        if (index == end) {
+            return Long.MIN_VALUE;
         }
 
-        final String player = tokens[1].toLowerCase();
+        boolean negative = false;
+        if (input.charAt(index) == '-' || input.charAt(index) == '+') {
+            negative = input.charAt(index) == '-';
+            ++index;
+        }
 
-        final String limitString = tokens[2];
-        final Double limitValue = Double.valueOf(limitString);
+        if (index == end) {
+            return Long.MIN_VALUE;
+        }
 
-        final WalletCommand newWalletCommand = new WalletCommand(action, 1, player, limitValue);
-        return Optional.of(newWalletCommand);
+        long value = 0;
+        for (; index < end; ++index) {
+            final char c = input.charAt(index);
+            if (c < '0' || c > '9') {
+                return Long.MIN_VALUE;
+            }
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE + 1L) {
+                return Long.MIN_VALUE;
+            }
+        }
+
+        value = negative ? -value : value;
+        return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? Long.MIN_VALUE : value;
+    }
+
+    /**
+     * Parses plain decimals like "4.20" exactly as Double.valueOf would. Anything longer than fifteen digits or
+     * in exponent notation is handed to Double.parseDouble.
+     *
+     * @return the parsed value, or NaN if the token is not a number.
+     */
+    private static double parseDecimal(final String input, int index, final int end) {
+        final int tokenStart = index;
+
+        boolean negative = false;
+        if (index < end && (input.charAt(index) == '-' || input.charAt(index) == '+')) {
+            negative = input.charAt(index) == '-';
+            ++index;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+
+        for (; index < end; ++index) {
+            final char c = input.charAt(index);
+            if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                ++digits;
+                if (seenPoint) {
+                    ++fractionDigits;
+                }
+                if (digits > MAX_EXACT_DIGITS) {
+                    return parseWithFallback(input, tokenStart, end);
+                }
+            } else if (c == 'e' || c == 'E') {
+                return parseWithFallback(input, tokenStart, end);
+            } else {
+                return Double.NaN;
+            }
+        }
+
+        if (digits == 0) {
+            return Double.NaN;
+        }
+
+        final double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private static double parseWithFallback(final String input, final int start, final int end) {
+        try {
+            return Double.parseDouble(input.substring(start, end));
+        } catch (final NumberFormatException e) {
+            return Double.NaN;
+        }
     }
 }
@@ -1,16 +1,14 @@
 package data.factory;
 
 import application.Config;
+import cache.WalletViewCache;
 import com.cheddar.robinhood.data.Quote;
 import org.springframework.beans.factory.annotation.Autowired;
 import stockstream.cache.BrokerCache;
 import stockstream.cache.InstrumentCache;
 import stockstream.computer.QuoteComputer;
-import stockstream.computer.WalletComputer;
 import stockstream.data.*;
 import stockstream.database.InstrumentStub;
-import stockstream.database.Wallet;
-import stockstream.database.WalletRegistry;
 import utils.GameUtil;
 
 import java.util.concurrent.ExecutionException;
@@ -28,10 +26,7 @@ public class ResponseFactory {
     private InstrumentCache instrumentCache;
 
     @Autowired
-    private WalletComputer walletComputer;
-
-    @Autowired
-    private WalletRegistry walletRegistry;
+    private WalletViewCache walletViewCache;
 
     @Autowired
     private QuoteComputer quoteComputer;
@@ -134,9 +129,8 @@ public class ResponseFactory {
         final WalletCommand walletCommand = walletOrderResult.getWalletCommand();
         final int completedOrders = walletOrderResult.getExecutedShares();
 
-        final Wallet wallet = walletRegistry.getWallet(player);
         final String action = walletCommand.getAction().toString();
-        final double walletBalance = walletComputer.computeSpendingBalance(wallet);
+        final double walletBalance = walletViewCache.getView(player).getSpendingBalance();
         final String symbol = walletCommand.getParameter();
         final int quantity = walletCommand.getQuantity();
         final InstrumentStub instrument = instrumentCache.getSymbolToInstrument().get(symbol);
@@ -2,6 +2,7 @@ package logic.game;
 
 import application.Config;
 import application.Stage;
+import cache.MarketCalendar;
 import com.cheddar.robinhood.data.MarketState;
 import com.google.common.annotations.VisibleForTesting;
 import logic.voting.VoteEngine;
@@ -10,15 +11,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.joda.time.DateTime;
 import org.joda.time.base.BaseDateTime;
 import org.springframework.beans.factory.annotation.Autowired;
-import stockstream.cache.BrokerCache;
-import stockstream.computer.TimeComputer;
 import stockstream.database.GameStateRegistry;
 import stockstream.database.GameStateStub;
-import stockstream.logic.Scheduler;
 
 import javax.annotation.PostConstruct;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ScheduledFuture;
 
+/**
+ * Sets a one-shot timer for the next GameEvent instead of polling for it, so rounds close on time and the process
+ * stays idle while the market is closed.
+ */
 @Slf4j
 public class GameClock {
 
@@ -26,13 +28,10 @@ public class GameClock {
     private GameEngine gameEngine;
 
     @Autowired
-    private BrokerCache brokerCache;
+    private MarketCalendar marketCalendar;
 
     @Autowired
-    private TimeComputer timeComputer;
-
-    @Autowired
-    private Scheduler scheduler;
+    private GameTimeSource gameTimeSource;
 
     @Autowired
     private GameStateRegistry gameStateRegistry;
@@ -46,41 +45,76 @@ public class GameClock {
     private static final int STEP_SECONDS = 30;
     private static final int MIN_LENGTH_SECONDS = 60;
     private static final int MAX_LENGTH_SECONDS = 600;
+    private static final long FIRST_EVENT_DELAY_MILLIS = 1000;
 
     @Getter
-    private GameEvent nextGameEvent = new GameEvent(0, GameEvent.Type.MARKET_OPEN);
+    private volatile GameEvent nextGameEvent = new GameEvent(0, GameEvent.Type.MARKET_OPEN);
 
-    public void speedUp() {
-        roundLengthSeconds -= STEP_SECONDS;
-        if (roundLengthSeconds < MIN_LENGTH_SECONDS) {
-            roundLengthSeconds = MIN_LENGTH_SECONDS;
-        }
+    private ScheduledFuture<?> nextEventTimer;
+    private long roundStartMillis = 0;
+    private boolean handlingEvent = false;
+
+    public synchronized void speedUp() {
+        setRoundLengthSeconds(Math.max(roundLengthSeconds - STEP_SECONDS, MIN_LENGTH_SECONDS));
     }
 
-    public void slowDown() {
-        roundLengthSeconds += STEP_SECONDS;
-        if (roundLengthSeconds > MAX_LENGTH_SECONDS) {
-            roundLengthSeconds = MAX_LENGTH_SECONDS;
-        }
+    public synchronized void slowDown() {
+        setRoundLengthSeconds(Math.min(roundLengthSeconds + STEP_SECONDS, MAX_LENGTH_SECONDS));
     }
 
     @PostConstruct
     public void init() {
-        this.scheduler.scheduleJob(this::doApplicationTick, 1000, 200, TimeUnit.MILLISECONDS);
+        nextEventTimer = gameTimeSource.schedule(this::onGameEvent, FIRST_EVENT_DELAY_MILLIS);
+    }
+
+    /**
+     * A pending round end moves with the new length. Changes made by the speed election while a round is closing
+     * apply from the round computed next.
+     */
+    private void setRoundLengthSeconds(final int newRoundLengthSeconds) {
+        if (newRoundLengthSeconds == roundLengthSeconds) {
+            return;
+        }
+        roundLengthSeconds = newRoundLengthSeconds;
+
+        if (!handlingEvent && nextGameEvent.getEventType() == GameEvent.Type.GAME_TICK) {
+            setNextGameEvent(new GameEvent(roundStartMillis + (roundLengthSeconds * 1000), GameEvent.Type.GAME_TICK));
+            scheduleNextEvent();
+        }
     }
 
-    private void doApplicationTick() {
-        final DateTime now = new DateTime();
+    @VisibleForTesting
+    protected synchronized void onGameEvent() {
+        final long now = gameTimeSource.currentTimeMillis();
+
+        if (now < nextGameEvent.getNextEvent()) {
+            log.info("Woke up {}ms before next event {}.", nextGameEvent.getNextEvent() - now, nextGameEvent);
+            scheduleNextEvent();
+            return;
+        }
 
-        if (now.isAfter(nextGameEvent.getNextEvent())) {
-            log.info("Now {} is after next event {}.", now, nextGameEvent);
+        log.info("Now {} is at or after next event {}.", now, nextGameEvent);
 
+        handlingEvent = true;
+        try {
             if (nextGameEvent.getNextEvent() > 0) {
                 voteEngine.executeElections();
             }
 
-            setNextGameEvent(findNextEvent(now));
+            roundStartMillis = now;
+            setNextGameEvent(findNextEvent(new DateTime(now)));
+        } finally {
+            handlingEvent = false;
+            scheduleNextEvent();
+        }
+    }
+
+    private void scheduleNextEvent() {
+        if (nextEventTimer != null) {
+            nextEventTimer.cancel(false);
         }
+        final long delayMillis = nextGameEvent.getNextEvent() - gameTimeSource.currentTimeMillis();
+        nextEventTimer = gameTimeSource.schedule(this::onGameEvent, Math.max(0, delayMillis));
     }
 
     private void setNextGameEvent(final GameEvent gameEvent) {
@@ -91,9 +125,9 @@ public class GameClock {
 
     @VisibleForTesting
     protected GameEvent findNextEvent(final DateTime now) {
-        final MarketState marketStateToday = this.brokerCache.getMarketState(now);
+        final MarketState marketStateToday = this.marketCalendar.getMarketState(now);
 
-        final long nextGameTick = System.currentTimeMillis() + (getRoundLengthSeconds() * 1000);
+        final long nextGameTick = now.getMillis() + (getRoundLengthSeconds() * 1000);
         if (marketStateToday.isOpenNow()) {
             return new GameEvent(nextGameTick, GameEvent.Type.GAME_TICK);
         }
@@ -105,7 +139,7 @@ public class GameClock {
             return new GameEvent(openTimeToday, GameEvent.Type.MARKET_OPEN);
         }
 
-        final MarketState nextBusinessDay = this.timeComputer.findNextBusinessDay(now);
+        final MarketState nextBusinessDay = this.marketCalendar.findNextBusinessDay(now);
         final long nextBusinessDayOpenTime = nextBusinessDay.getExtendedOpenTime().map(BaseDateTime::getMillis).orElse(nextGameTick);
         return new GameEvent(nextBusinessDayOpenTime, GameEvent.Type.MARKET_OPEN);
     }
@@ -1,12 +1,16 @@
 package logic.game;
 
 import application.Config;
+import cache.QuoteCache;
 import com.cheddar.robinhood.RobinhoodAPI;
 import com.cheddar.robinhood.data.Order;
 import com.cheddar.robinhood.data.Quote;
 import com.cheddar.robinhood.exception.RobinhoodException;
 import data.Event;
+import data.LatencyStage;
+import data.VoterWallets;
 import lombok.extern.slf4j.Slf4j;
+import network.gateway.aws.MetricPublisher;
 import org.springframework.beans.factory.annotation.Autowired;
 import spark.utils.CollectionUtils;
 import stockstream.cache.BrokerCache;
@@ -20,8 +24,11 @@ import stockstream.database.InstrumentStub;
 import stockstream.logic.Scheduler;
 
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
@@ -52,7 +59,27 @@ public class GameEngine {
     @Autowired
     private WalletComputer walletComputer;
 
+    @Autowired
+    private MetricPublisher metricPublisher;
+
+    @Autowired
+    private QuoteCache quoteCache;
+
+    @Autowired
+    private QuotePrefetcher quotePrefetcher;
+
+    private static final long PREFETCHED_QUOTE_MAX_AGE_MILLIS = 5000;
+
     public OrderResult executeBestCommand(final SortedMap<TradeCommand, Set<Voter>> rankedTradeCommandsToPlayers) {
+        return executeBestCommand(rankedTradeCommandsToPlayers, null);
+    }
+
+    /**
+     * @param voterWallets wallets of the winning command's voters, loaded while the quote is fetched.
+     *                     When null, buying power is computed from the registry.
+     */
+    public OrderResult executeBestCommand(final SortedMap<TradeCommand, Set<Voter>> rankedTradeCommandsToPlayers,
+                                          final CompletableFuture<VoterWallets> voterWallets) {
 
         if (CollectionUtils.isEmpty(rankedTradeCommandsToPlayers.keySet())) {
             return new OrderResult(null, "", OrderStatus.NOT_ENOUGH_VOTES, null);
@@ -83,9 +110,22 @@ public class GameEngine {
         }
 
         try {
-            final Quote quote = brokerCache.getQuoteForSymbol(symbol);
+            final Optional<Quote> prefetchedQuote = quoteCache.getFreshQuote(symbol, PREFETCHED_QUOTE_MAX_AGE_MILLIS);
+
+            final Quote quote;
+            if (prefetchedQuote.isPresent()) {
+                metricPublisher.incrementCounter("PrefetchedQuoteHit", 1);
+                quote = prefetchedQuote.get();
+            } else {
+                metricPublisher.incrementCounter("PrefetchedQuoteMiss", 1);
+                final long quoteStart = System.currentTimeMillis();
+                quote = brokerCache.getQuoteForSymbol(symbol);
+                metricPublisher.recordLatency(LatencyStage.QUOTE_FETCH, System.currentTimeMillis() - quoteStart);
+            }
 
+            final long preProcessStart = System.currentTimeMillis();
             orderStatus = orderComputer.preProcessTradeCommand(bestTradeCommand, bestCommandEntry.getValue());
+            metricPublisher.recordLatency(LatencyStage.ROUND_PRE_PROCESS, System.currentTimeMillis() - preProcessStart);
 
             if (orderStatus != OrderStatus.OK) {
                 return new OrderResult(bestTradeCommand.getAction().toString(), symbol, orderStatus, null);
@@ -102,7 +142,7 @@ public class GameEngine {
             }
 
             if (bestTradeCommand.getAction().equals(TradeAction.BUY)) {
-                final double buyingPower = walletComputer.computeBuyingPower(voters);
+                final double buyingPower = computeBuyingPower(voters, voterWallets);
                 log.info("Got voting power {} and most recent price of {}", buyingPower, quoteMostRecentPrice);
                 if (buyingPower<quoteMostRecentPrice){
                     return new OrderResult(bestTradeCommand.getAction().toString(), symbol, OrderStatus.NOT_ENOUGH_BUYING_POWER, null);
@@ -139,28 +179,64 @@ public class GameEngine {
         }
     }
 
+    private double computeBuyingPower(final Set<String> voters, final CompletableFuture<VoterWallets> voterWallets) {
+        if (voterWallets == null) {
+            return walletComputer.computeBuyingPower(voters);
+        }
+
+        final long waitStart = System.currentTimeMillis();
+        try {
+            return voterWallets.join().getTotalBuyingPower();
+        } catch (final CompletionException e) {
+            log.warn("Voter wallet load failed, computing buying power directly. {}", e.getMessage(), e);
+            return walletComputer.computeBuyingPower(voters);
+        } finally {
+            metricPublisher.publishMetric("VoterWalletWaitMillis", System.currentTimeMillis() - waitStart);
+        }
+    }
+
+    private InstrumentStub findInstrument(final String symbol, final Quote quote) {
+        final Optional<InstrumentStub> warmInstrument = quotePrefetcher.getWarmInstrument(symbol);
+        if (warmInstrument.isPresent()) {
+            metricPublisher.incrementCounter("PrefetchedInstrumentHit", 1);
+            return warmInstrument.get();
+        }
+        metricPublisher.incrementCounter("PrefetchedInstrumentMiss", 1);
+        return instrumentCache.getUrlToInstrument().get(quote.getInstrument());
+    }
+
     private Order processSell(final TradeCommand tradeCommand, final Quote quote) throws RobinhoodException {
         log.info("Executing SELL tradeCommand {} ", tradeCommand);
 
-        final InstrumentStub instrument = instrumentCache.getUrlToInstrument().get(quote.getInstrument());
+        final InstrumentStub instrument = findInstrument(tradeCommand.getParameter(), quote);
 
         final String symbolToSell = tradeCommand.getParameter();
 
         final double limit = orderComputer.calculateSellOrderFloor(quote);
         final String moddedLimit = orderComputer.constructLimitOrderString(limit, instrument.getMin_tick_size());
 
-        return this.broker.sellShares(symbolToSell, 1, Double.valueOf(moddedLimit));
+        final long sellStart = System.currentTimeMillis();
+        try {
+            return this.broker.sellShares(symbolToSell, 1, Double.valueOf(moddedLimit));
+        } finally {
+            metricPublisher.recordLatency(LatencyStage.BROKER_SELL, System.currentTimeMillis() - sellStart);
+        }
     }
 
     private Order processBuy(final TradeCommand tradeCommand, final Quote quote) throws RobinhoodException {
         log.info("Executing BUY tradeCommand {} ", tradeCommand);
 
-        final InstrumentStub instrument = instrumentCache.getUrlToInstrument().get(quote.getInstrument());
+        final InstrumentStub instrument = findInstrument(tradeCommand.getParameter(), quote);
 
         final double limit = orderComputer.calculateBuyOrderCeiling(quote);
         final String moddedLimit = orderComputer.constructLimitOrderString(limit, instrument.getMin_tick_size());
 
-        return this.broker.buyShares(tradeCommand.getParameter(), 1, Double.valueOf(moddedLimit));
+        final long buyStart = System.currentTimeMillis();
+        try {
+            return this.broker.buyShares(tradeCommand.getParameter(), 1, Double.valueOf(moddedLimit));
+        } finally {
+            metricPublisher.recordLatency(LatencyStage.BROKER_BUY, System.currentTimeMillis() - buyStart);
+        }
     }
 
 }
@@ -0,0 +1,15 @@
+package logic.game;
+
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Where the GameClock reads the time and sets its timer. Game events are wall clock millis, delays are waited out
+ * on a monotonic clock.
+ */
+public interface GameTimeSource {
+
+    long currentTimeMillis();
+
+    ScheduledFuture<?> schedule(final Runnable task, final long delayMillis);
+
+}
@@ -0,0 +1,106 @@
+package logic.game;
+
+import cache.QuoteCache;
+import com.cheddar.robinhood.exception.RobinhoodException;
+import com.google.common.collect.ImmutableMap;
+import data.Standings;
+import logic.voting.TradingElection;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import stockstream.cache.InstrumentCache;
+import stockstream.data.TradeAction;
+import stockstream.data.TradeCommand;
+import stockstream.database.InstrumentStub;
+import stockstream.logic.Scheduler;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps quotes and instruments for the leading trade commands warm during the last seconds of a round so
+ * GameEngine can place the winning order without a cold quote fetch or instrument lookup.
+ */
+@Slf4j
+public class QuotePrefetcher {
+
+    @Autowired
+    private GameClock gameClock;
+
+    @Autowired
+    private TradingElection tradingElection;
+
+    @Autowired
+    private QuoteCache quoteCache;
+
+    @Autowired
+    private InstrumentCache instrumentCache;
+
+    @Autowired
+    private Scheduler scheduler;
+
+    private static final int PREFETCH_WINDOW_SECONDS = 10;
+    private static final int PREFETCH_CANDIDATES = 3;
+    private static final long PREFETCH_INTERVAL_MILLIS = 2000;
+
+    private final AtomicReference<ImmutableMap<String, InstrumentStub>> warmInstruments = new AtomicReference<>(ImmutableMap.of());
+
+    @PostConstruct
+    public void init() {
+        scheduler.scheduleJob(this::prefetchLeaders, 5000, PREFETCH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Instrument for one of the symbols leading at the last prefetch, if it was found then.
+     */
+    public Optional<InstrumentStub> getWarmInstrument(final String symbol) {
+        return Optional.ofNullable(warmInstruments.get().get(symbol));
+    }
+
+    private void prefetchLeaders() {
+        final GameEvent nextGameEvent = gameClock.getNextGameEvent();
+        if (!GameEvent.Type.GAME_TICK.equals(nextGameEvent.getEventType())) {
+            return;
+        }
+
+        final long millisUntilClose = nextGameEvent.getNextEvent() - System.currentTimeMillis();
+        if (millisUntilClose < 0 || millisUntilClose > TimeUnit.SECONDS.toMillis(PREFETCH_WINDOW_SECONDS)) {
+            return;
+        }
+
+        final Set<String> symbols = tradingElection.getStandings(PREFETCH_CANDIDATES).stream()
+                                                   .map(Standings.Entry::getTradeCommand)
+                                                   .filter(tradeCommand -> !TradeAction.SKIP.equals(tradeCommand.getAction()))
+                                                   .map(TradeCommand::getParameter)
+                                                   .collect(Collectors.toSet());
+
+        if (symbols.isEmpty()) {
+            return;
+        }
+
+        warmInstruments.set(resolveInstruments(symbols));
+
+        try {
+            quoteCache.refreshQuotes(symbols);
+        } catch (final RobinhoodException e) {
+            log.warn("Could not prefetch quotes for {}. {}", symbols, e.getMessage(), e);
+        }
+    }
+
+    private ImmutableMap<String, InstrumentStub> resolveInstruments(final Set<String> symbols) {
+        final Map<String, InstrumentStub> symbolToInstrument = instrumentCache.getSymbolToInstrument();
+        final ImmutableMap.Builder<String, InstrumentStub> instruments = ImmutableMap.builder();
+        symbols.forEach(symbol -> {
+            final InstrumentStub instrument = symbolToInstrument.get(symbol);
+            if (instrument != null) {
+                instruments.put(symbol, instrument);
+            }
+        });
+        return instruments.build();
+    }
+
+}
@@ -0,0 +1,30 @@
+package logic.game;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall clock time with timers on a ScheduledExecutorService, whose delays run off System.nanoTime and so are not
+ * thrown off by wall clock adjustments.
+ */
+public class SystemGameTimeSource implements GameTimeSource {
+
+    private final ScheduledExecutorService timerExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "gameClock");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(final Runnable task, final long delayMillis) {
+        return timerExecutor.schedule(task, Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+    }
+
+}
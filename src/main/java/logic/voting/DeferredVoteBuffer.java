@@ -0,0 +1,44 @@
+package logic.voting;
+
+import data.Vote;
+import logic.game.GameEvent;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds votes cast after an election expired until the next round opens. Votes are parked under the
+ * GameEvent that was pending when they arrived and released together once a later event is scheduled.
+ */
+public class DeferredVoteBuffer {
+
+    private final ConcurrentMap<GameEvent, Queue<Vote>> eventToVotes = new ConcurrentHashMap<>();
+
+    public void defer(final GameEvent gameEvent, final Vote vote) {
+        eventToVotes.computeIfAbsent(gameEvent, event -> new ConcurrentLinkedQueue<>()).add(vote);
+    }
+
+    /**
+     * Removes and returns every vote parked under an event at or before the given event, oldest round first.
+     */
+    public List<Vote> release(final GameEvent nextGameEvent) {
+        final List<GameEvent> expiredEvents = new ArrayList<>();
+        eventToVotes.keySet().forEach(event -> {
+            if (event.getNextEvent() <= nextGameEvent.getNextEvent()) {
+                expiredEvents.add(event);
+            }
+        });
+        expiredEvents.sort(Comparator.comparingLong(GameEvent::getNextEvent));
+
+        final List<Vote> releasedVotes = new ArrayList<>();
+        expiredEvents.forEach(event -> releasedVotes.addAll(eventToVotes.remove(event)));
+        return releasedVotes;
+    }
+
+    public int size() {
+        return eventToVotes.values().stream().mapToInt(Queue::size).sum();
+    }
+
+}
@@ -1,19 +1,27 @@
 package logic.voting;
 
+import com.google.common.collect.ImmutableMap;
 import data.command.SpeedAction;
 import data.command.SpeedCommand;
 import logic.game.GameClock;
 import org.springframework.beans.factory.annotation.Autowired;
+import stockstream.data.Voter;
 import stockstream.logic.elections.Election;
 
 import javax.annotation.PostConstruct;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class SpeedElection extends Election<SpeedCommand> {
 
     @Autowired
     private GameClock gameClock;
 
+    /**
+     * Voters per speed command label, replaced whole after every change so it can be read from any thread.
+     */
+    private final AtomicReference<ImmutableMap<String, Integer>> voteCounts = new AtomicReference<>(ImmutableMap.of());
+
     public SpeedElection() {
         super("!speed", SpeedCommand.class, 1);
     }
@@ -34,4 +42,25 @@ public class SpeedElection extends Election<SpeedCommand> {
 
         return Optional.empty();
     }
+
+    @Override
+    public synchronized Optional<String> receiveVote(final String message, final Voter voter) {
+        final Optional<String> response = super.receiveVote(message, voter);
+        refreshVoteCounts();
+        return response;
+    }
+
+    public ImmutableMap<String, Integer> getVoteCounts() {
+        return voteCounts.get();
+    }
+
+    /**
+     * Rebuilds the vote count snapshot from the election's maps. Callers must keep votes out while it runs,
+     * which receiveVote does by holding the monitor and the round close by holding VoteEngine's tally lock.
+     */
+    public synchronized void refreshVoteCounts() {
+        final ImmutableMap.Builder<String, Integer> counts = ImmutableMap.builder();
+        getCandidateToVoters().forEach((speedCommand, voters) -> counts.put(speedCommand.getLabel(), voters.size()));
+        voteCounts.set(counts.build());
+    }
 }
@@ -0,0 +1,142 @@
+package logic.voting;
+
+import application.Config;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import data.Standings;
+import lombok.Getter;
+import stockstream.data.TradeCommand;
+import stockstream.data.Voter;
+import stockstream.logic.elections.VoteComparator;
+
+import java.util.*;
+
+/**
+ * Votes for a single trading round, updated as each vote is received. This is the round's only record of its
+ * votes: the live standings and the round close both read it. Candidates are kept ordered with the
+ * {@link VoteComparator} elections rank by, moving a voter between candidates costs O(log n), and the current
+ * leader and top candidates can be read without locking.
+ */
+public class TradeTally {
+
+    @Getter
+    public static class CandidateTally {
+        private final TradeCommand tradeCommand;
+        private final Set<Voter> voters = new LinkedHashSet<>();
+        private long votesReceived = 0;
+
+        private CandidateTally(final TradeCommand tradeCommand) {
+            this.tradeCommand = tradeCommand;
+        }
+    }
+
+    private final Map<TradeCommand, CandidateTally> candidates = new HashMap<>();
+    private final Map<TradeCommand, Set<Voter>> candidateToVoters = new HashMap<>();
+
+    /**
+     * Ordered by the live candidate to voters map, so a candidate must be removed before its voters change and
+     * re-added afterwards.
+     */
+    private final TreeSet<TradeCommand> ranking = new TreeSet<>(new VoteComparator<>(candidateToVoters));
+
+    @Getter
+    private final Map<Voter, TradeCommand> voterToCandidate = new HashMap<>();
+
+    @Getter
+    private final Map<String, Voter> playerIdToVoter = new HashMap<>();
+
+    private volatile TradeCommand leader = null;
+
+    /**
+     * Immutable top of the ranking, rebuilt and swapped in whole by every vote so readers never see it mid-change.
+     */
+    private volatile ImmutableList<Standings.Entry> topCandidates = ImmutableList.of();
+
+    @Getter
+    private volatile long version;
+
+    public TradeTally() {
+        this(0);
+    }
+
+    /**
+     * @param initialVersion version to count up from, so versions keep increasing across rounds.
+     */
+    public TradeTally(final long initialVersion) {
+        this.version = initialVersion;
+    }
+
+    public synchronized void recordVote(final Voter voter, final TradeCommand tradeCommand) {
+        final TradeCommand previousCommand = voterToCandidate.put(voter, tradeCommand);
+        playerIdToVoter.put(voter.getPlayerId(), voter);
+
+        if (tradeCommand.equals(previousCommand)) {
+            candidates.get(tradeCommand).votesReceived++;
+            topCandidates = rankTopCandidates();
+            version++;
+            return;
+        }
+
+        if (previousCommand != null) {
+            final CandidateTally previousCandidate = candidates.get(previousCommand);
+            ranking.remove(previousCommand);
+            previousCandidate.voters.remove(voter);
+            if (previousCandidate.voters.isEmpty()) {
+                candidates.remove(previousCommand);
+                candidateToVoters.remove(previousCommand);
+            } else {
+                ranking.add(previousCommand);
+            }
+        }
+
+        CandidateTally candidate = candidates.get(tradeCommand);
+        if (candidate == null) {
+            candidate = new CandidateTally(tradeCommand);
+            candidates.put(tradeCommand, candidate);
+            candidateToVoters.put(tradeCommand, candidate.voters);
+        } else {
+            ranking.remove(tradeCommand);
+        }
+        candidate.voters.add(voter);
+        candidate.votesReceived++;
+        ranking.add(tradeCommand);
+
+        leader = ranking.first();
+        topCandidates = rankTopCandidates();
+        version++;
+    }
+
+    private ImmutableList<Standings.Entry> rankTopCandidates() {
+        final ImmutableList.Builder<Standings.Entry> rankedCandidates = ImmutableList.builder();
+        ranking.stream()
+               .limit(Config.STANDINGS_TOP_CANDIDATES)
+               .map(candidates::get)
+               .forEach(candidate -> rankedCandidates.add(new Standings.Entry(candidate.getTradeCommand(), candidate.getVotesReceived(), candidate.getVoters().size())));
+        return rankedCandidates.build();
+    }
+
+    public Optional<TradeCommand> getLeader() {
+        return Optional.ofNullable(leader);
+    }
+
+    /**
+     * @param limit at most this many candidates are returned, and never more than {@link Config#STANDINGS_TOP_CANDIDATES}.
+     */
+    public ImmutableList<Standings.Entry> getTopCandidates(final int limit) {
+        final ImmutableList<Standings.Entry> rankedCandidates = topCandidates;
+        return rankedCandidates.subList(0, Math.min(limit, rankedCandidates.size()));
+    }
+
+    /**
+     * Candidates ordered by {@link VoteComparator}, as the election would sort them. Builds a new sorted map, so this
+     * costs O(n log n) in the number of candidates. Backed by the tally's own voter sets, so only call this on a
+     * tally that no longer receives votes.
+     */
+    public synchronized SortedMap<TradeCommand, Set<Voter>> toRankedMap() {
+        final Map<TradeCommand, Set<Voter>> rankedVoters = ImmutableMap.copyOf(candidateToVoters);
+        final SortedMap<TradeCommand, Set<Voter>> rankedCandidates = new TreeMap<>(new VoteComparator<>(rankedVoters));
+        rankedCandidates.putAll(rankedVoters);
+        return rankedCandidates;
+    }
+
+}
@@ -2,12 +2,20 @@ package logic.voting;
 
 import com.cheddar.robinhood.exception.RobinhoodException;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import data.LatencyStage;
 import data.RoundResult;
+import data.Standings;
+import data.VoterWallets;
 import data.factory.CommandFactory;
 import data.factory.ResponseFactory;
 import logic.game.GameEngine;
+import lombok.AllArgsConstructor;
+import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import network.gateway.aws.MetricPublisher;
 import network.gateway.aws.RoundPublisher;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,7 +29,12 @@ import stockstream.logic.elections.Election;
 
 import javax.annotation.PostConstruct;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -51,6 +64,25 @@ public class TradingElection extends Election<TradeCommand> {
     @Autowired
     private GameEngine gameEngine;
 
+    @Autowired
+    private MetricPublisher metricPublisher;
+
+    private final ExecutorService walletExecutor = Executors.newSingleThreadExecutor(r -> newDaemonThread(r, "voterWallets"));
+    private final ExecutorService roundCloseExecutor = Executors.newSingleThreadExecutor(r -> newDaemonThread(r, "roundClose"));
+
+    private final AtomicReference<TradeTally> tradeTally = new AtomicReference<>(new TradeTally());
+
+    @Data
+    @AllArgsConstructor
+    private static class PreResponseKey {
+        private final TradeCommand tradeCommand;
+        private final OrderStatus orderStatus;
+    }
+
+    // Rejection response for each command and status seen this round; swapped for an empty map when the round closes or an order goes through.
+    private final AtomicReference<Map<PreResponseKey, CompletableFuture<Optional<String>>>> preResponses =
+            new AtomicReference<>(new ConcurrentHashMap<>());
+
     public TradingElection() {
         super("!trading", TradeCommand.class, 0);
     }
@@ -58,14 +90,57 @@ public class TradingElection extends Election<TradeCommand> {
     @PostConstruct
     public void init() {
         this.withMessageParser(m -> commandFactory.constructTradeCommand(m))
-            .withVotePreProcessor(this::tryPreProcess)
             .withOutcome(this::onElection);
+
+        pubSub.subscribeFunctionToClassType(this::onOrderResult, OrderResult.class);
+    }
+
+    private Void onOrderResult(final OrderResult orderResult) {
+        resetPreResponses();
+        return null;
+    }
+
+    private void resetPreResponses() {
+        preResponses.set(new ConcurrentHashMap<>());
+    }
+
+    public Optional<TradeCommand> getCurrentLeader() {
+        return tradeTally.get().getLeader();
+    }
+
+    public long getStandingsVersion() {
+        return tradeTally.get().getVersion();
+    }
+
+    public ImmutableList<Standings.Entry> getStandings(final int limit) {
+        return tradeTally.get().getTopCandidates(limit);
+    }
+
+    /**
+     * Votes are counted only in the {@link TradeTally}, never in the election's own candidate maps, so the live
+     * standings and the round close read the same record.
+     */
+    @Override
+    public Optional<String> receiveVote(final String message, final Voter voter) {
+        final Optional<TradeCommand> tradeCommand = commandFactory.constructTradeCommand(message);
+        if (!tradeCommand.isPresent()) {
+            return Optional.empty();
+        }
+        return onVote(tradeCommand.get(), voter);
+    }
+
+    private Optional<String> onVote(final TradeCommand tradeCommand, final Voter voter) {
+        final Optional<String> rejection = tryPreProcess(tradeCommand, voter);
+        if (!rejection.isPresent()) {
+            tradeTally.get().recordVote(voter, tradeCommand);
+        }
+        return rejection;
     }
 
     private Optional<String> tryPreProcess(final TradeCommand tradeCommand, final Voter voter) {
         try {
             return preProcessTradeCommand(tradeCommand, voter);
-        } catch (final ExecutionException | RobinhoodException e) {
+        } catch (final ExecutionException | RobinhoodException | RuntimeException e) {
             log.warn("{} -> {}", tradeCommand, e.getMessage(), e);
         }
         return Optional.empty();
@@ -77,60 +152,177 @@ public class TradingElection extends Election<TradeCommand> {
             return Optional.empty();
         }
 
+        final long preProcessStart = System.currentTimeMillis();
         final OrderStatus orderStatus = orderComputer.preProcessTradeCommand(tradeCommand, ImmutableSet.of(voter));
+        metricPublisher.recordLatency(LatencyStage.VOTE_PRE_PROCESS, System.currentTimeMillis() - preProcessStart);
         if (!orderStatus.equals(OrderStatus.OK)) {
-            final String response = responseFactory.constructPreResponse(tradeCommand.getAction().toString(), tradeCommand.getParameter(), orderStatus);
-            if (!StringUtils.isEmpty(response)) {
-                return Optional.of(response);
-            }
+            return preResponseOncePerRound(tradeCommand, orderStatus);
         }
         return Optional.empty();
     }
 
+    /**
+     * The order check depends on the voter, but the response to a rejection only on the command and status, so
+     * each pair builds its response, and fetches the quote behind it, once per round. Concurrent first rejections
+     * wait for the one building it. Failures are not kept, so the next rejection tries again.
+     */
+    private Optional<String> preResponseOncePerRound(final TradeCommand tradeCommand, final OrderStatus orderStatus) throws ExecutionException, RobinhoodException {
+        final Map<PreResponseKey, CompletableFuture<Optional<String>>> roundResponses = preResponses.get();
+        final PreResponseKey key = new PreResponseKey(tradeCommand, orderStatus);
+
+        final CompletableFuture<Optional<String>> computed = new CompletableFuture<>();
+        final CompletableFuture<Optional<String>> existing = roundResponses.putIfAbsent(key, computed);
+        if (existing != null) {
+            metricPublisher.incrementCounter("PreResponseCacheHits", 1);
+            return existing.join();
+        }
+
+        try {
+            final String response = responseFactory.constructPreResponse(tradeCommand.getAction().toString(), tradeCommand.getParameter(), orderStatus);
+            final Optional<String> rejection = StringUtils.isEmpty(response) ? Optional.empty() : Optional.of(response);
+            computed.complete(rejection);
+            return rejection;
+        } catch (final Exception e) {
+            roundResponses.remove(key, computed);
+            computed.complete(Optional.empty());
+            throw e;
+        }
+    }
+
     @VisibleForTesting
     protected Void onElection(final TradeCommand tradeCommand) {
-        final SortedMap<TradeCommand, Set<Voter>> sortedCandidateToVoters = this.getSortedCandidateToVoters();
-        final Map<Voter, TradeCommand> voterToCandidate = this.getVoterToCandidate();
-        final Map<String, Voter> playerIdToVoter = voterToCandidate.keySet().stream().collect(Collectors.toMap(Voter::getPlayerId, v -> v));
+        closeRound();
+        return null;
+    }
 
-        final OrderResult orderResult = gameEngine.executeBestCommand(sortedCandidateToVoters);
+    /**
+     * Closes the round in stages. Only freezing the tally runs on the caller's thread, so the next round opens
+     * for voting straight away. The order executes on a single round-close thread, keeping orders from
+     * consecutive rounds in sequence, while voter wallets load alongside it; the OrderResult is published as
+     * soon as the order is placed and the RoundResult once the over-limit players are known.
+     */
+    @VisibleForTesting
+    protected CompletableFuture<RoundResult> closeRound() {
+        final long freezeStart = System.currentTimeMillis();
+        final long closedAt = getExpirationDate();
 
-        final Set<String> playerIdsOverLimit = findPlayersOverLimit(sortedCandidateToVoters);
+        final TradeTally roundTally = tradeTally.getAndUpdate(tally -> new TradeTally(tally.getVersion() + 1));
+        resetPreResponses();
 
-        playerIdsOverLimit.forEach(player -> voterToCandidate.remove(playerIdToVoter.get(player)));
+        final SortedMap<TradeCommand, Set<Voter>> sortedCandidateToVoters = roundTally.toRankedMap();
+        final Map<Voter, TradeCommand> voterToCandidate = new HashMap<>(roundTally.getVoterToCandidate());
+        final Map<String, Voter> playerIdToVoter = roundTally.getPlayerIdToVoter();
 
-        final RoundResult roundResult = new RoundResult(voterToCandidate, sortedCandidateToVoters, orderResult);
+        metricPublisher.recordLatency(LatencyStage.ROUND_FREEZE, System.currentTimeMillis() - freezeStart);
 
-        pubSub.publishClassType(OrderResult.class, orderResult);
+        final CompletableFuture<VoterWallets> voterWallets = loadVoterWallets(sortedCandidateToVoters);
 
-        roundPublisher.publishRoundResult(roundResult);
+        final CompletableFuture<OrderResult> orderResult =
+                CompletableFuture.supplyAsync(() -> executeOrder(sortedCandidateToVoters, voterWallets, closedAt), roundCloseExecutor)
+                                 .exceptionally(e -> {
+                                     log.warn("Could not execute order for round {}. {}", sortedCandidateToVoters.keySet(), e.getMessage(), e);
+                                     return failedOrderResult(sortedCandidateToVoters);
+                                 });
 
-        return null;
+        final CompletableFuture<Set<String>> playersOverLimit = voterWallets.thenApply(this::findPlayersOverLimit).exceptionally(e -> {
+            log.warn("Could not load voter wallets, nobody marked over limit. {}", e.getMessage(), e);
+            return new HashSet<>();
+        });
+
+        final CompletableFuture<Void> orderPublished = orderResult.thenAccept(this::publishOrderResult);
+
+        final CompletableFuture<RoundResult> roundPublished = orderResult.thenCombine(playersOverLimit, (result, playerIdsOverLimit) -> {
+            playerIdsOverLimit.forEach(player -> voterToCandidate.remove(playerIdToVoter.get(player)));
+            return new RoundResult(voterToCandidate, sortedCandidateToVoters, result);
+        }).thenApply(this::publishRoundResult);
+
+        return roundPublished.thenCombine(orderPublished, (roundResult, published) -> roundResult).whenComplete((roundResult, e) -> {
+            if (e != null) {
+                log.warn("Could not close round {}. {}", sortedCandidateToVoters.keySet(), e.getMessage(), e);
+            }
+        });
     }
 
-    @VisibleForTesting
-    private Set<String> findPlayersOverLimit(final SortedMap<TradeCommand, Set<Voter>> candidateToVoters) {
-        final Set<String> playerIdsOverLimit = new HashSet<>();
+    private OrderResult executeOrder(final SortedMap<TradeCommand, Set<Voter>> sortedCandidateToVoters,
+                                     final CompletableFuture<VoterWallets> voterWallets, final long closedAt) {
+        final long executeStart = System.currentTimeMillis();
+        metricPublisher.recordLatency(LatencyStage.CLOSE_TO_EXECUTE, executeStart - closedAt);
+
+        final OrderResult orderResult = gameEngine.executeBestCommand(sortedCandidateToVoters, voterWallets);
+
+        if (orderResult.getOrder() != null) {
+            metricPublisher.publishMetric("CloseToOrderMillis", System.currentTimeMillis() - closedAt);
+        }
+        metricPublisher.recordLatency(LatencyStage.ROUND_EXECUTE, System.currentTimeMillis() - executeStart);
+
+        return orderResult;
+    }
+
+    private static OrderResult failedOrderResult(final SortedMap<TradeCommand, Set<Voter>> sortedCandidateToVoters) {
+        if (sortedCandidateToVoters.isEmpty()) {
+            return new OrderResult(null, "", OrderStatus.UNKNOWN, null);
+        }
+        final TradeCommand bestTradeCommand = sortedCandidateToVoters.firstKey();
+        return new OrderResult(bestTradeCommand.getAction().toString(), bestTradeCommand.getParameter(), OrderStatus.BROKER_EXCEPTION, null);
+    }
+
+    private static Thread newDaemonThread(final Runnable runnable, final String name) {
+        final Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private Set<String> findPlayersOverLimit(final VoterWallets voterWallets) {
+        final long overLimitStart = System.currentTimeMillis();
+        final Set<String> playersOverLimit = voterWallets.getPlayersWithoutBuyingPower();
+        metricPublisher.recordLatency(LatencyStage.ROUND_OVER_LIMIT, System.currentTimeMillis() - overLimitStart);
+        return playersOverLimit;
+    }
+
+    private void publishOrderResult(final OrderResult orderResult) {
+        final long publishStart = System.currentTimeMillis();
+        pubSub.publishClassType(OrderResult.class, orderResult);
+        metricPublisher.recordLatency(LatencyStage.ROUND_PUBLISH, System.currentTimeMillis() - publishStart);
+    }
+
+    private RoundResult publishRoundResult(final RoundResult roundResult) {
+        final long publishStart = System.currentTimeMillis();
+        roundPublisher.publishRoundResult(roundResult);
+        metricPublisher.recordLatency(LatencyStage.ROUND_RESULT, System.currentTimeMillis() - publishStart);
+        return roundResult;
+    }
 
+    /**
+     * Starts loading the wallets of the winning command's voters. Only BUY rounds need them; the load runs
+     * alongside GameEngine's quote fetch and the snapshot is shared with it.
+     */
+    private CompletableFuture<VoterWallets> loadVoterWallets(final SortedMap<TradeCommand, Set<Voter>> candidateToVoters) {
         if (candidateToVoters.size() <= 0) {
-            return playerIdsOverLimit;
+            return CompletableFuture.completedFuture(VoterWallets.EMPTY);
         }
 
         final Map.Entry<TradeCommand, Set<Voter>> winningTradeEntry = candidateToVoters.entrySet().iterator().next();
         final TradeCommand winningTrade = winningTradeEntry.getKey();
 
-        if (winningTrade.getAction().equals(TradeAction.BUY)) {
-            final Set<String> voters = winningTradeEntry.getValue().stream().map(Voter::getPlayerId).collect(Collectors.toSet());
-            final List<Wallet> playerWallets = walletRegistry.getWallets(voters);
-            playerWallets.forEach(wallet -> {
-                final double votingPower = walletComputer.computeBuyingPower(wallet);
-                if (votingPower <= 0) {
-                    playerIdsOverLimit.add(wallet.getPlatform_username());
-                }
-            });
+        if (!winningTrade.getAction().equals(TradeAction.BUY)) {
+            return CompletableFuture.completedFuture(VoterWallets.EMPTY);
         }
 
-        return playerIdsOverLimit;
+        final Set<String> voters = winningTradeEntry.getValue().stream().map(Voter::getPlayerId).collect(Collectors.toSet());
+
+        return CompletableFuture.supplyAsync(() -> {
+            final long loadStart = System.currentTimeMillis();
+
+            final double totalBuyingPower = walletComputer.computeBuyingPower(voters);
+
+            final List<Wallet> playerWallets = walletRegistry.getWallets(voters);
+            final Map<String, Double> playerToBuyingPower = new HashMap<>();
+            playerWallets.forEach(wallet -> playerToBuyingPower.put(wallet.getPlatform_username(), walletComputer.computeBuyingPower(wallet)));
+
+            metricPublisher.publishMetric("VoterWalletLoadMillis", System.currentTimeMillis() - loadStart);
+
+            return new VoterWallets(totalBuyingPower, ImmutableMap.copyOf(playerToBuyingPower));
+        }, walletExecutor);
     }
 
 }
@@ -1,30 +1,37 @@
 package logic.voting;
 
+import application.Config;
+import com.google.common.collect.ImmutableMap;
+import data.ChatMessage;
+import data.LatencyStage;
+import data.Standings;
 import data.Vote;
 import logic.game.GameClock;
+import logic.game.GameEvent;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import network.gateway.aws.MetricPublisher;
-import org.apache.commons.lang3.StringUtils;
-import org.pircbotx.hooks.ListenerAdapter;
-import org.pircbotx.hooks.events.MessageEvent;
+import network.gateway.twitch.MentionCoalescer;
 import org.springframework.beans.factory.annotation.Autowired;
 import spark.utils.CollectionUtils;
 import stockstream.cache.BrokerCache;
 import stockstream.data.Voter;
 import stockstream.database.ElectionRegistry;
+import stockstream.logic.PubSub;
 import stockstream.logic.Scheduler;
 import stockstream.logic.elections.Election;
 import stockstream.twitch.TwitchAPI;
-import stockstream.twitch.TwitchChat;
 
 import javax.annotation.PostConstruct;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 @Slf4j
-public class VoteEngine extends ListenerAdapter {
+public class VoteEngine {
 
     @Autowired
     private GameClock gameClock;
@@ -42,7 +49,7 @@ public class VoteEngine extends ListenerAdapter {
     private ElectionRegistry electionRegistry;
 
     @Autowired
-    private TwitchChat twitchChat;
+    private MentionCoalescer mentionCoalescer;
 
     @Autowired
     private TradingElection tradingElection;
@@ -56,33 +63,114 @@ public class VoteEngine extends ListenerAdapter {
     @Autowired
     private BrokerCache brokerCache;
 
+    @Autowired
+    private PubSub pubSub;
+
     private final int MAX_EXECUTOR_JOBS = 5;
     private final ExecutorService executorService = Executors.newFixedThreadPool(MAX_EXECUTOR_JOBS, f -> new Thread(f, "votePoll"));
 
+    private static final int VOTE_SHARDS = 4;
+    private static final int VOTE_SHARD_CAPACITY = 10000;
+
     private final List<Election<?>> elections = new ArrayList<>();
 
     private final Set<String> activePlayers = ConcurrentHashMap.newKeySet();
 
+    private final ReadWriteLock tallyLock = new ReentrantReadWriteLock();
+
+    private VoteIngestionPipeline ingestionPipeline;
+
+    private final DeferredVoteBuffer deferredVotes = new DeferredVoteBuffer();
+
     @Getter
     private Queue<Vote> voteQueue = new ConcurrentLinkedQueue<>();
 
+    private final AtomicReference<Standings> latestStandings = new AtomicReference<>();
+    private long publishedTradeVersion = -1;
+    private ImmutableMap<String, Integer> publishedSpeedVotes = ImmutableMap.of();
+
     @PostConstruct
     public void init() {
         elections.add(tradingElection);
         elections.add(speedElection);
         elections.add(walletElection);
-        scheduler.scheduleJob(this::multiThreadedPoll, 5000, 200, TimeUnit.MILLISECONDS);
+
+        if (Config.STREAMING_VOTE_INGESTION) {
+            ingestionPipeline = new VoteIngestionPipeline(VOTE_SHARDS, VOTE_SHARD_CAPACITY, this::tallyVote,
+                                                          metricPublisher.getLatencyHistogram(LatencyStage.ENQUEUE_TO_TALLY.getMetricName()));
+            ingestionPipeline.start();
+        } else {
+            scheduler.scheduleJob(this::multiThreadedPoll, 5000, 200, TimeUnit.MILLISECONDS);
+        }
+
+        scheduler.scheduleJob(this::publishStandings, 5000, Config.STANDINGS_PUBLISH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
     }
 
     public synchronized void executeElections() {
-        elections.forEach(Election::executeOutcome);
+        tallyLock.writeLock().lock();
+        try {
+            elections.forEach(Election::executeOutcome);
+            speedElection.refreshVoteCounts();
+        } finally {
+            tallyLock.writeLock().unlock();
+        }
         publishMetrics();
         activePlayers.clear();
     }
 
     public synchronized void updateElectionExpirations() {
-        elections.forEach(election -> election.setExpirationDate(gameClock.getNextGameEvent().getNextEvent()));
+        final GameEvent nextGameEvent = gameClock.getNextGameEvent();
+        final List<Vote> releasedVotes;
+
+        tallyLock.writeLock().lock();
+        try {
+            elections.forEach(election -> election.setExpirationDate(nextGameEvent.getNextEvent()));
+            releasedVotes = deferredVotes.release(nextGameEvent);
+        } finally {
+            tallyLock.writeLock().unlock();
+        }
         electionRegistry.archiveElections(elections);
+
+        log.info("Releasing {} deferred votes into round {}.", releasedVotes.size(), nextGameEvent);
+        metricPublisher.publishMetric("DeferredVotes", releasedVotes.size());
+        releasedVotes.forEach(this::ingestVote);
+    }
+
+    public int getDeferredVoteCount() {
+        return deferredVotes.size();
+    }
+
+    /**
+     * Most recently published standings, or null before the first vote of the session.
+     */
+    public Standings getLatestStandings() {
+        return latestStandings.get();
+    }
+
+    /**
+     * Publishes a fresh Standings snapshot when the trading tally or the speed vote counts changed since the
+     * last publish. Both are read from immutable snapshots the elections swap in on every vote, so this never
+     * touches a map that votes are changing.
+     */
+    private void publishStandings() {
+        final long tradeVersion = tradingElection.getStandingsVersion();
+
+        final ImmutableMap<String, Integer> speedVotes = speedElection.getVoteCounts();
+
+        if (tradeVersion == publishedTradeVersion && speedVotes.equals(publishedSpeedVotes)) {
+            return;
+        }
+
+        final Standings previousStandings = latestStandings.get();
+        final long version = previousStandings == null ? 1 : previousStandings.getVersion() + 1;
+        final Standings standings = new Standings(version, System.currentTimeMillis(),
+                                                  tradingElection.getStandings(Config.STANDINGS_TOP_CANDIDATES), speedVotes);
+
+        publishedTradeVersion = tradeVersion;
+        publishedSpeedVotes = speedVotes;
+        latestStandings.set(standings);
+
+        pubSub.publishClassType(Standings.class, standings);
     }
 
     private void publishMetrics() {
@@ -98,43 +186,53 @@ public class VoteEngine extends ListenerAdapter {
         metricPublisher.publishMetric("ActivePlayers", activePlayerCount);
         metricPublisher.publishMetric("TotalViewers", totalAudience);
         metricPublisher.publishMetric("SpendableCash", spendableCash);
-    }
 
-    @Override
-    public void onMessage(final MessageEvent event) {
-        if (event.getUser() == null) {
-            return;
+        if (ingestionPipeline != null) {
+            final VoteIngestionPipeline.Stats stats = ingestionPipeline.snapshotAndReset();
+            metricPublisher.publishMetric("VotesTallied", stats.getTalliedVotes());
+            metricPublisher.publishMetric("VotesBlocked", stats.getBlockedVotes());
+            metricPublisher.publishMetric("VotesDropped", stats.getDroppedVotes());
+            metricPublisher.publishMetric("VoteBacklog", stats.getBacklog());
         }
+    }
 
-        final String fromChannel = event.getChannelSource();
-        final String nick = event.getUser().getNick();
-
+    /**
+     * Every chatter counts as an active player for the round, whether or not they voted.
+     */
+    public void recordActivePlayer(final String nick) {
         activePlayers.add(nick);
+    }
 
-        final String eventMessage = event.getMessage().toLowerCase();
+    public void onChatMessage(final ChatMessage message) {
+        ingestVote(new Vote(message.getVoter(), message.getNormalized(), message.getChannel(), message.getTimestamp()));
+        metricPublisher.recordLatency(LatencyStage.IRC_TO_ENQUEUE, System.currentTimeMillis() - message.getTimestamp());
+    }
 
-        if (StringUtils.isEmpty(eventMessage)) {
+    private void ingestVote(final Vote vote) {
+        if (ingestionPipeline != null) {
+            ingestionPipeline.submit(vote);
             return;
         }
-
-        final boolean isSubscriber = "1".equals(event.getTags().getOrDefault("subscriber", "0"));
-
-        final String vote = eventMessage.toLowerCase();
-        final Voter voter = new Voter(nick, "twitch", fromChannel, isSubscriber);
-
-        voteQueue.add(new Vote(voter, vote, fromChannel, new Date().getTime()));
+        voteQueue.add(vote);
     }
 
-    public synchronized void enqueueVote(final Vote vote) {
-        voteQueue.add(vote);
+    /**
+     * Injects a vote from outside of chat, such as the simulator. It takes the same path as chat votes.
+     */
+    public void enqueueVote(final Vote vote) {
+        ingestVote(vote);
     }
 
     public synchronized void multiThreadedPoll() {
+        if (voteQueue.isEmpty()) {
+            return;
+        }
+
         final long now = new Date().getTime();
         final Set<Election<?>> unexpiredElections = elections.stream().filter(election -> now < election.getExpirationDate()).collect(Collectors.toSet());
 
         if (CollectionUtils.isEmpty(unexpiredElections)) {
-            log.info("{} uncounted votes.", voteQueue.size());
+            log.debug("All elections expired, holding polled votes until the next round.");
             return;
         }
 
@@ -169,27 +267,34 @@ public class VoteEngine extends ListenerAdapter {
                 continue;
             }
 
-            final boolean requeueVote = processVote(vote);
+            tallyVote(vote);
+        }
+    }
 
-            if (requeueVote) {
-                voteQueue.add(vote);
-            }
+    private void tallyVote(final Vote vote) {
+        tallyLock.readLock().lock();
+        try {
+            processVote(vote);
+        } finally {
+            tallyLock.readLock().unlock();
         }
     }
 
-    private boolean processVote(final Vote vote) {
-        boolean requeueVote = false;
+    private void processVote(final Vote vote) {
+        boolean deferVote = false;
 
         for (final Election<?> election : elections) {
             if (vote.getTimestamp() < election.getExpirationDate()) {
                 final Optional<String> response = election.receiveVote(vote.getVote(), vote.getVoter());
-                response.ifPresent(s -> twitchChat.enqueueMessage(vote.getFromChannel(), String.format("@%s %s", vote.getVoter().getUsername(), s)));
+                response.ifPresent(s -> mentionCoalescer.reply(vote.getFromChannel(), vote.getVoter().getUsername(), s));
             } else {
-                requeueVote = true;
+                deferVote = true;
             }
         }
 
-        return requeueVote;
+        if (deferVote) {
+            deferredVotes.defer(gameClock.getNextGameEvent(), vote);
+        }
     }
 
 }
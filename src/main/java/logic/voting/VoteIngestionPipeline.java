@@ -0,0 +1,126 @@
+package logic.voting;
+
+import data.Vote;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import stockstream.data.Voter;
+import utils.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Streams votes from chat into the elections. Votes are sharded by player id so a single player's votes
+ * are always tallied in the order they were cast, and each shard is drained continuously by its own thread.
+ */
+@Slf4j
+public class VoteIngestionPipeline {
+
+    private final List<BlockingQueue<QueuedVote>> shards = new ArrayList<>();
+    private final Consumer<Vote> voteConsumer;
+    private final LatencyHistogram enqueueToTally;
+
+    private final AtomicLong talliedVotes = new AtomicLong();
+    private final AtomicLong blockedVotes = new AtomicLong();
+    private final AtomicLong droppedVotes = new AtomicLong();
+
+    @AllArgsConstructor
+    private static class QueuedVote {
+        private final Vote vote;
+        private final long enqueuedAt;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Stats {
+        private final long talliedVotes;
+        private final long blockedVotes;
+        private final long droppedVotes;
+        private final int backlog;
+    }
+
+    public VoteIngestionPipeline(final int shardCount, final int shardCapacity, final Consumer<Vote> voteConsumer,
+                                 final LatencyHistogram enqueueToTally) {
+        this.voteConsumer = voteConsumer;
+        this.enqueueToTally = enqueueToTally;
+        for (int i = 0; i < shardCount; ++i) {
+            shards.add(new ArrayBlockingQueue<>(shardCapacity));
+        }
+    }
+
+    public void start() {
+        for (int i = 0; i < shards.size(); ++i) {
+            final BlockingQueue<QueuedVote> shard = shards.get(i);
+            final Thread consumer = new Thread(() -> drainShard(shard), String.format("voteShard-%s", i));
+            consumer.setDaemon(true);
+            consumer.start();
+        }
+    }
+
+    /**
+     * Hands a vote to its shard. A full shard blocks the caller until there is room rather than dropping the
+     * vote, so a burst pushes back onto the chat connection instead of losing votes. A vote is only lost if the
+     * caller is interrupted while waiting.
+     */
+    public boolean submit(final Vote vote) {
+        final BlockingQueue<QueuedVote> shard = shardFor(vote.getVoter());
+        final QueuedVote queuedVote = new QueuedVote(vote, System.currentTimeMillis());
+
+        if (shard.offer(queuedVote)) {
+            return true;
+        }
+
+        blockedVotes.incrementAndGet();
+        try {
+            shard.put(queuedVote);
+            return true;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        droppedVotes.incrementAndGet();
+        log.warn("Interrupted waiting for a full vote shard, dropping vote {}.", vote);
+        return false;
+    }
+
+    public int getBacklog() {
+        return shards.stream().mapToInt(BlockingQueue::size).sum();
+    }
+
+    public Stats snapshotAndReset() {
+        return new Stats(talliedVotes.getAndSet(0), blockedVotes.getAndSet(0), droppedVotes.getAndSet(0), getBacklog());
+    }
+
+    private BlockingQueue<QueuedVote> shardFor(final Voter voter) {
+        return shards.get(Math.floorMod(voter.getPlayerId().hashCode(), shards.size()));
+    }
+
+    private void drainShard(final BlockingQueue<QueuedVote> shard) {
+        while (!Thread.currentThread().isInterrupted()) {
+            final QueuedVote queuedVote;
+            try {
+                queuedVote = shard.take();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            final Vote vote = queuedVote.vote;
+            enqueueToTally.record(System.currentTimeMillis() - queuedVote.enqueuedAt);
+
+            try {
+                voteConsumer.accept(vote);
+            } catch (final RuntimeException e) {
+                log.warn("{} -> {}", vote, e.getMessage(), e);
+            }
+
+            talliedVotes.incrementAndGet();
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package logic.wallet;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Striped;
+import org.springframework.beans.factory.annotation.Autowired;
+import stockstream.database.Wallet;
+import stockstream.database.WalletRegistry;
+
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Lock-based WalletStore over the WalletRegistry, local to this process. The wallet table has no version column
+ * to write against conditionally, so each write holds a lock for every wallet it touches; writes to unrelated
+ * wallets never wait on each other. Only safe while this process is the sole writer of wallet rows.
+ */
+public class LocalLockWalletStore implements WalletStore {
+
+    private static final int LOCK_STRIPES = 64;
+
+    @Autowired
+    private WalletRegistry walletRegistry;
+
+    private final Striped<Lock> walletLocks = Striped.lock(LOCK_STRIPES);
+
+    @Override
+    public Balance read(final String player) {
+        final Lock lock = walletLocks.get(player);
+        lock.lock();
+        try {
+            final Wallet wallet = walletRegistry.getWallet(player);
+            return new Balance(wallet.getSentDollars(), wallet.getReceivedDollars());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void transfer(final String fromPlayer, final String toPlayer, final double dollars) {
+        // bulkGet hands out the stripes in a fixed order, so two transfers between the same players cannot deadlock.
+        final ImmutableList<Lock> locks = ImmutableList.copyOf(walletLocks.bulkGet(ImmutableSet.of(fromPlayer, toPlayer)));
+        locks.forEach(Lock::lock);
+        try {
+            final Wallet fromWallet = walletRegistry.getWallet(fromPlayer);
+            final Wallet toWallet = fromPlayer.equals(toPlayer) ? fromWallet : walletRegistry.getWallet(toPlayer);
+            fromWallet.setSentDollars(fromWallet.getSentDollars() + dollars);
+            toWallet.setReceivedDollars(toWallet.getReceivedDollars() + dollars);
+            walletRegistry.updateWallets(ImmutableSet.of(fromWallet, toWallet));
+        } finally {
+            locks.reverse().forEach(Lock::unlock);
+        }
+    }
+
+    @Override
+    public void setReferralCode(final String player, final String referralCode) {
+        final Lock lock = walletLocks.get(player);
+        lock.lock();
+        try {
+            final Wallet wallet = walletRegistry.getWallet(player);
+            wallet.setReferralCode(referralCode);
+            walletRegistry.updateWallets(ImmutableSet.of(wallet));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+package logic.wallet;
+
+import application.Config;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import data.WalletTransfer;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only log of #send transfers, one JSON line per transfer, written through a single open writer before the
+ * wallets are touched. The wallet registry stays the source of truth: the file lives on the dyno's ephemeral disk
+ * and does not cover transfers made before it existed, so replaying it only accounts for transfers recorded since.
+ */
+@Slf4j
+public class TransferLedger {
+
+    private final Path ledgerFile;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicLong nextId;
+
+    private BufferedWriter writer = null;
+
+    public TransferLedger() {
+        this(Paths.get(Config.WALLET_TRANSFER_LEDGER_FILE));
+    }
+
+    public TransferLedger(final Path ledgerFile) {
+        this.ledgerFile = ledgerFile;
+        this.nextId = new AtomicLong(readTransfers().stream().mapToLong(WalletTransfer::getId).max().orElse(0) + 1);
+    }
+
+    public synchronized WalletTransfer append(final String fromPlayer, final String toPlayer, final double dollars) throws IOException {
+        final WalletTransfer transfer = new WalletTransfer(nextId.getAndIncrement(), fromPlayer, toPlayer, dollars, System.currentTimeMillis());
+
+        if (writer == null) {
+            writer = Files.newBufferedWriter(ledgerFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+
+        try {
+            writer.write(objectMapper.writeValueAsString(transfer));
+            writer.newLine();
+            writer.flush();
+        } catch (final IOException e) {
+            close();
+            throw e;
+        }
+
+        return transfer;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (writer == null) {
+            return;
+        }
+
+        try {
+            writer.close();
+        } catch (final IOException e) {
+            log.warn("Could not close wallet transfer ledger {}. {}", ledgerFile, e.getMessage(), e);
+        }
+        writer = null;
+    }
+
+    public synchronized List<WalletTransfer> readTransfers() {
+        final List<WalletTransfer> transfers = new ArrayList<>();
+        if (!Files.exists(ledgerFile)) {
+            return transfers;
+        }
+
+        try {
+            for (final String line : Files.readAllLines(ledgerFile, StandardCharsets.UTF_8)) {
+                if (!line.isEmpty()) {
+                    transfers.add(objectMapper.readValue(line, WalletTransfer.class));
+                }
+            }
+        } catch (final IOException e) {
+            log.error("Could not read wallet transfers from {}. {}", ledgerFile, e.getMessage(), e);
+        }
+        return transfers;
+    }
+
+    /**
+     * @return the dollars each player has sent and received according to the recorded transfers. A reversed transfer
+     *         is recorded again with negative dollars, so it nets out.
+     */
+    public Map<String, WalletStore.Balance> replayBalances() {
+        final Map<String, WalletStore.Balance> playerToBalance = new HashMap<>();
+        for (final WalletTransfer transfer : readTransfers()) {
+            playerToBalance.merge(transfer.getFromPlayer(), new WalletStore.Balance(transfer.getDollars(), 0), TransferLedger::add);
+            playerToBalance.merge(transfer.getToPlayer(), new WalletStore.Balance(0, transfer.getDollars()), TransferLedger::add);
+        }
+        return playerToBalance;
+    }
+
+    private static WalletStore.Balance add(final WalletStore.Balance a, final WalletStore.Balance b) {
+        return new WalletStore.Balance(a.getSentDollars() + b.getSentDollars(), a.getReceivedDollars() + b.getReceivedDollars());
+    }
+
+}
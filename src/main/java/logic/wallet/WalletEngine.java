@@ -1,21 +1,27 @@
 package logic.wallet;
 
+import application.Config;
 import cache.LastOrderCache;
+import cache.WalletViewCache;
 import com.cheddar.robinhood.RobinhoodAPI;
 import com.cheddar.robinhood.data.Order;
 import com.cheddar.robinhood.exception.RobinhoodException;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.ImmutableSet;
 import data.factory.ResponseFactory;
 import lombok.extern.slf4j.Slf4j;
+import network.gateway.aws.MetricPublisher;
+import network.gateway.twitch.OutboundChat;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import stockstream.computer.OrderComputer;
 import stockstream.computer.WalletComputer;
 import stockstream.data.*;
 import stockstream.database.*;
-import stockstream.twitch.TwitchChat;
+import utils.FairKeyedExecutor;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 
@@ -41,7 +47,7 @@ public class WalletEngine {
     private RobinhoodOrderRegistry robinhoodOrderRegistry;
 
     @Autowired
-    private TwitchChat twitchChat;
+    private OutboundChat outboundChat;
 
     @Autowired
     private ResponseFactory responseFactory;
@@ -49,42 +55,150 @@ public class WalletEngine {
     @Autowired
     private WalletComputer walletComputer;
 
-    public synchronized void processWalletCommandFromVoter(final WalletCommand walletCommand, final Voter voter) {
-        try {
-            final WalletOrderResult walletOrderResult = processQuantityWalletOrder(walletCommand, voter);
+    @Autowired
+    private MetricPublisher metricPublisher;
 
-            final String response = responseFactory.constructWalletCommandResponse(voter.getPlayerId(), walletOrderResult);
+    @Autowired
+    private WalletStore walletStore;
 
-            twitchChat.enqueueMessage(voter.getChannel(), String.format("@%s %s", voter.getUsername(), response));
-            lastOrderCache.setLastOrderForPlayer(voter.getPlayerId(), response);
+    @Autowired
+    private TransferLedger transferLedger;
+
+    @Autowired
+    private WalletViewCache walletViewCache;
+
+    private final FairKeyedExecutor playerExecutor = new FairKeyedExecutor("walletEngine", Config.WALLET_ENGINE_THREADS);
+
+    /**
+     * Queues the command behind the player's earlier wallet commands. Different players' commands run in
+     * parallel. A multi-share BUY is placed as one batch order when batching is on; other quantity orders give
+     * up their worker after every share.
+     */
+    public void processWalletCommandFromVoter(final WalletCommand walletCommand, final Voter voter) {
+        final long submittedAt = System.currentTimeMillis();
+        final QuantityWalletOrder quantityWalletOrder = new QuantityWalletOrder(walletCommand, voter);
+
+        playerExecutor.submit(voter.getPlayerId(), new FairKeyedExecutor.Job() {
+            private boolean started = false;
+
+            @Override
+            public boolean runStep() {
+                if (!started) {
+                    started = true;
+                    metricPublisher.publishMetric("WalletQueueWaitMillis", System.currentTimeMillis() - submittedAt);
+                }
 
-        } catch (final RobinhoodException | ExecutionException e) {
-            log.warn("{} {} -> {}", voter, walletCommand, e.getMessage(), e);
+                try {
+                    if (quantityWalletOrder.step()) {
+                        return true;
+                    }
+                    respond(voter, quantityWalletOrder.getResult());
+                } catch (final RobinhoodException | ExecutionException e) {
+                    log.warn("{} {} -> {}", voter, walletCommand, e.getMessage(), e);
+                }
+                return false;
+            }
+        });
+
+        metricPublisher.publishMetric("WalletActivePlayers", playerExecutor.getActiveKeys());
+    }
+
+    private void respond(final Voter voter, final WalletOrderResult walletOrderResult) {
+        if (walletOrderResult.getExecutedShares() > 0) {
+            walletViewCache.refresh(voter.getPlayerId());
         }
+
+        final String response = responseFactory.constructWalletCommandResponse(voter.getPlayerId(), walletOrderResult);
+
+        outboundChat.send(voter.getChannel(), String.format("@%s %s", voter.getUsername(), response), OutboundChat.Priority.WALLET_ORDER);
+        lastOrderCache.setLastOrderForPlayer(voter.getPlayerId(), response);
     }
 
     @VisibleForTesting
     protected WalletOrderResult processQuantityWalletOrder(final WalletCommand walletCommand, final Voter voter) throws ExecutionException, RobinhoodException {
-        OrderStatus orderStatus = orderComputer.preProcessWalletCommand(voter.getPlayerId(), walletCommand);
+        final QuantityWalletOrder quantityWalletOrder = new QuantityWalletOrder(walletCommand, voter);
+        while (quantityWalletOrder.step()) {
+            // one share per step
+        }
+        return quantityWalletOrder.getResult();
+    }
 
-        if (!OrderStatus.OK.equals(orderStatus)) {
-            return new WalletOrderResult(walletCommand, 0, orderStatus);
+    /**
+     * A wallet command of some quantity, run one share per step so it can be interleaved with other players.
+     */
+    private class QuantityWalletOrder {
+        private final WalletCommand walletCommand;
+        private final Voter voter;
+
+        private OrderStatus orderStatus = null;
+        private int completedOrders = 0;
+
+        private QuantityWalletOrder(final WalletCommand walletCommand, final Voter voter) {
+            this.walletCommand = walletCommand;
+            this.voter = voter;
         }
 
-        int completedOrders = 0;
+        /**
+         * @return true if there are shares left to order.
+         */
+        private boolean step() throws ExecutionException, RobinhoodException {
+            if (orderStatus == null) {
+                orderStatus = orderComputer.preProcessWalletCommand(voter.getPlayerId(), walletCommand);
+                return OrderStatus.OK.equals(orderStatus) && completedOrders < walletCommand.getQuantity();
+            }
+
+            if (isBatchBuy(walletCommand)) {
+                final WalletOrderResult batchResult = processBatchBuy(voter.getPlayerId(), walletCommand);
+                orderStatus = batchResult.getOrderStatus();
+                completedOrders = batchResult.getExecutedShares();
+                return false;
+            }
 
-        for (int i = 0; i < walletCommand.getQuantity(); ++i) {
             final OrderResult orderResult = processWalletCommand(voter.getPlayerId(), walletCommand);
             orderStatus = orderResult.getOrderStatus();
 
-            if (!OrderStatus.OK.equals(orderResult.getOrderStatus())) {
-                break;
+            if (!OrderStatus.OK.equals(orderStatus)) {
+                return false;
             }
 
             completedOrders++;
+            return completedOrders < walletCommand.getQuantity();
+        }
+
+        private WalletOrderResult getResult() {
+            return new WalletOrderResult(walletCommand, completedOrders, orderStatus);
         }
+    }
 
-        return new WalletOrderResult(walletCommand, completedOrders, orderStatus);
+    private static boolean isBatchBuy(final WalletCommand walletCommand) {
+        return Config.BATCH_WALLET_BUY_ORDERS && WalletAction.BUY.equals(walletCommand.getAction()) && walletCommand.getQuantity() > 1;
+    }
+
+    /**
+     * Buys every share of the command in one broker order. The wallet ledger still holds one WalletOrder per share,
+     * since sells consume them a share at a time, but they are written in a single batch. Like the per-share path,
+     * rows are written for every placed order whatever its state, so the player pays for what the fund buys.
+     */
+    @VisibleForTesting
+    protected WalletOrderResult processBatchBuy(final String player, final WalletCommand walletCommand) throws RobinhoodException {
+        final Order order = broker.buyShares(walletCommand.getParameter(), walletCommand.getQuantity(), walletCommand.getLimit());
+        if (order == null) {
+            log.warn("No order returned for {} {}", player, walletCommand);
+            return new WalletOrderResult(walletCommand, 0, OrderStatus.BROKER_EXCEPTION);
+        }
+
+        final List<WalletOrder> shareOrders = new ArrayList<>(walletCommand.getQuantity());
+        for (int i = 0; i < walletCommand.getQuantity(); ++i) {
+            final WalletOrder shareOrder = new WalletOrder(walletCommand.getParameter(), order, player);
+            shareOrder.setQuantity("1");
+            shareOrders.add(shareOrder);
+        }
+
+        walletOrderRegistry.saveWalletOrders(shareOrders);
+        robinhoodOrderRegistry.saveRobinhoodOrder(new RobinhoodOrder(walletCommand.getParameter(), order));
+        walletViewCache.invalidate(player);
+
+        return new WalletOrderResult(walletCommand, walletCommand.getQuantity(), OrderStatus.OK);
     }
 
     @VisibleForTesting
@@ -133,12 +247,7 @@ public class WalletEngine {
                     targetPlayer = targetPlayer.substring(1);
                 }
 
-                final Wallet targetWallet = walletRegistry.getWallet("twitch:" + targetPlayer);
-
-                wallet.setSentDollars(wallet.getSentDollars() + walletCommand.getLimit());
-                targetWallet.setReceivedDollars(targetWallet.getReceivedDollars() + walletCommand.getLimit());
-
-                walletRegistry.updateWallets(ImmutableSet.of(wallet, targetWallet));
+                transferDollars(wallet.getPlatform_username(), "twitch:" + targetPlayer, walletCommand.getLimit());
 
             } default: {
                 break;
@@ -151,9 +260,41 @@ public class WalletEngine {
 
             walletOrderRegistry.saveWalletOrder(walletOrder);
             robinhoodOrderRegistry.saveRobinhoodOrder(robinhoodOrder);
+            walletViewCache.invalidate(wallet.getPlatform_username());
         }
 
         return order;
     }
 
+    /**
+     * Records the transfer in the ledger, then debits the sender and credits the target in one write of both
+     * wallets. A transfer the ledger cannot record is refused; one the wallets cannot take is reversed in the ledger.
+     */
+    @VisibleForTesting
+    protected void transferDollars(final String fromPlayer, final String toPlayer, final double dollars) throws RobinhoodException {
+        try {
+            transferLedger.append(fromPlayer, toPlayer, dollars);
+        } catch (final IOException e) {
+            throw new RobinhoodException("Could not record transfer from " + fromPlayer + " to " + toPlayer + ": " + e.getMessage());
+        }
+
+        try {
+            walletStore.transfer(fromPlayer, toPlayer, dollars);
+        } catch (final RuntimeException e) {
+            reverseInLedger(fromPlayer, toPlayer, dollars);
+            throw new RobinhoodException("Could not transfer from " + fromPlayer + " to " + toPlayer + ": " + e.getMessage());
+        }
+
+        walletViewCache.refresh(toPlayer);
+    }
+
+    private void reverseInLedger(final String fromPlayer, final String toPlayer, final double dollars) {
+        try {
+            transferLedger.append(fromPlayer, toPlayer, -dollars);
+        } catch (final IOException e) {
+            metricPublisher.incrementCounter("WalletTransferLedgerFailures", 1);
+            log.error("Could not reverse unapplied transfer of {} from {} to {}. {}", dollars, fromPlayer, toPlayer, e.getMessage(), e);
+        }
+    }
+
 }
@@ -0,0 +1,28 @@
+package logic.wallet;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Serialized writes to the wallet columns more than one command changes. Every write re-reads the wallets it
+ * changes while holding their locks, so concurrent commands never overwrite each other's changes.
+ */
+public interface WalletStore {
+
+    @Data
+    @AllArgsConstructor
+    class Balance {
+        private final double sentDollars;
+        private final double receivedDollars;
+    }
+
+    Balance read(final String player);
+
+    /**
+     * Adds dollars to fromPlayer's sent dollars and toPlayer's received dollars in a single write of both wallets.
+     */
+    void transfer(final String fromPlayer, final String toPlayer, final double dollars);
+
+    void setReferralCode(final String player, final String referralCode);
+
+}
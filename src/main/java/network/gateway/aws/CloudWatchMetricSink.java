@@ -0,0 +1,26 @@
+package network.gateway.aws;
+
+import application.AWSConfig;
+import com.amazonaws.services.cloudwatch.AmazonCloudWatchAsync;
+import com.amazonaws.services.cloudwatch.AmazonCloudWatchAsyncClientBuilder;
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import com.amazonaws.services.cloudwatch.model.PutMetricDataRequest;
+
+import java.util.List;
+
+public class CloudWatchMetricSink implements MetricSink {
+
+    private static final String METRIC_NAMESPACE = "StockStream";
+
+    private final AmazonCloudWatchAsync amazonCloudWatchAsync =
+            AmazonCloudWatchAsyncClientBuilder.standard().withRegion(AWSConfig.AWS_REGION).withCredentials(AWSConfig.PROVIDER).build();
+
+    @Override
+    public void putMetricData(final List<MetricDatum> metricData) {
+        final PutMetricDataRequest request = new PutMetricDataRequest().withNamespace(METRIC_NAMESPACE)
+                                                                       .withMetricData(metricData);
+
+        amazonCloudWatchAsync.putMetricDataAsync(request);
+    }
+
+}
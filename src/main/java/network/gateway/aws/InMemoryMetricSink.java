@@ -0,0 +1,34 @@
+package network.gateway.aws;
+
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the most recent flushed batches in memory, for tests and the TEST stage.
+ */
+public class InMemoryMetricSink implements MetricSink {
+
+    private static final int RETAINED_BATCHES = 1000;
+
+    private final List<List<MetricDatum>> batches = new ArrayList<>();
+
+    @Override
+    public synchronized void putMetricData(final List<MetricDatum> metricData) {
+        batches.add(ImmutableList.copyOf(metricData));
+        if (batches.size() > RETAINED_BATCHES) {
+            batches.remove(0);
+        }
+    }
+
+    public synchronized ImmutableList<List<MetricDatum>> getBatches() {
+        return ImmutableList.copyOf(batches);
+    }
+
+    public synchronized void clear() {
+        batches.clear();
+    }
+
+}
@@ -0,0 +1,36 @@
+package network.gateway.aws;
+
+import com.google.common.collect.ImmutableList;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * Stand-in for SNS when running without AWS. Logs each notification and keeps the most recent ones in memory.
+ */
+@Slf4j
+public class LocalOrderNotificationSink implements OrderNotificationSink {
+
+    private static final int RETAINED_MESSAGES = 100;
+
+    private final Deque<String> publishedMessages = new ArrayDeque<>();
+
+    @Override
+    public synchronized Future<?> publish(final String message) {
+        log.info("Order notification: {}", message);
+
+        publishedMessages.addLast(message);
+        if (publishedMessages.size() > RETAINED_MESSAGES) {
+            publishedMessages.removeFirst();
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    public synchronized ImmutableList<String> getPublishedMessages() {
+        return ImmutableList.copyOf(publishedMessages);
+    }
+
+}
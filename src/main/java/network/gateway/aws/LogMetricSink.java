@@ -0,0 +1,17 @@
+package network.gateway.aws;
+
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+@Slf4j
+public class LogMetricSink implements MetricSink {
+
+    @Override
+    public void putMetricData(final List<MetricDatum> metricData) {
+        metricData.forEach(datum -> log.info("Metric {} {}", datum.getMetricName(),
+                                             datum.getStatisticValues() != null ? datum.getStatisticValues() : datum.getValue()));
+    }
+
+}
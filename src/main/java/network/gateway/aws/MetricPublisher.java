@@ -1,35 +1,160 @@
 package network.gateway.aws;
 
-import application.AWSConfig;
 import application.Config;
-import com.amazonaws.auth.AWSCredentials;
-import com.amazonaws.auth.AWSCredentialsProvider;
-import com.amazonaws.regions.Regions;
-import com.amazonaws.services.cloudwatch.AmazonCloudWatchAsync;
-import com.amazonaws.services.cloudwatch.AmazonCloudWatchAsyncClientBuilder;
 import com.amazonaws.services.cloudwatch.model.Dimension;
 import com.amazonaws.services.cloudwatch.model.MetricDatum;
-import com.amazonaws.services.cloudwatch.model.PutMetricDataRequest;
 import com.amazonaws.services.cloudwatch.model.StandardUnit;
+import com.amazonaws.services.cloudwatch.model.StatisticSet;
+import com.google.common.collect.ImmutableMap;
+import data.LatencyStage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import stockstream.logic.Scheduler;
+import utils.LatencyHistogram;
 
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process metric aggregator. Values, counters and latencies are rolled up per name; every flush interval the
+ * roll-ups are sent to the MetricSink in batches of at most MAX_DATUMS_PER_REQUEST, instead of one PutMetricData
+ * call per recorded value. Values and counters are updated inside their map entry and removed by the flush, so a
+ * sample lands either in the interval being flushed or in a fresh roll-up for the next one.
+ */
+@Slf4j
 public class MetricPublisher {
 
-    private static final String METRIC_NAMESPACE = "StockStream";
+    public static final int MAX_DATUMS_PER_REQUEST = 20;
+
+    private static final long FLUSH_INTERVAL_SECONDS = 60;
+
+    @Autowired
+    private MetricSink metricSink;
+
+    @Autowired
+    private Scheduler scheduler;
+
+    private static class ValueAggregate {
+        private long count = 0;
+        private double sum = 0;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        private ValueAggregate record(final double value) {
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            return this;
+        }
+    }
+
+    private final Dimension stageDimension = new Dimension().withName("Stage").withValue(Config.stage.name());
+
+    private final Map<String, ValueAggregate> values = new ConcurrentHashMap<>();
+    private final Map<String, Long> counters = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram.Snapshot> lastLatencySnapshots = new ConcurrentHashMap<>();
 
-    final AmazonCloudWatchAsync amazonCloudWatchAsync =
-            AmazonCloudWatchAsyncClientBuilder.standard().withRegion(AWSConfig.AWS_REGION).withCredentials(AWSConfig.PROVIDER).build();
+    @PostConstruct
+    public void init() {
+        scheduler.scheduleJob(this::flush, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
 
+    /**
+     * Records a sample. Samples of the same name are published as one statistic set per interval.
+     */
     public void publishMetric(final String metricName, final double metricValue) {
-        Dimension dimension = new Dimension().withName("Stage").withValue(Config.stage.name());
+        values.compute(metricName, (name, aggregate) -> (aggregate == null ? new ValueAggregate() : aggregate).record(metricValue));
+    }
+
+    public void incrementCounter(final String metricName, final long delta) {
+        counters.merge(metricName, delta, Long::sum);
+    }
+
+    public void recordLatency(final String metricName, final long millis) {
+        getLatencyHistogram(metricName).record(millis);
+    }
+
+    public void recordLatency(final LatencyStage stage, final long millis) {
+        recordLatency(stage.getMetricName(), millis);
+    }
+
+    /**
+     * Latency percentiles from the most recent flush interval, by metric name.
+     */
+    public ImmutableMap<String, LatencyHistogram.Snapshot> getLastLatencySnapshots() {
+        return ImmutableMap.copyOf(lastLatencySnapshots);
+    }
+
+    public LatencyHistogram getLatencyHistogram(final String metricName) {
+        return latencies.computeIfAbsent(metricName, name -> new LatencyHistogram());
+    }
 
-        MetricDatum datum = new MetricDatum().withMetricName(metricName)
-                                             .withUnit(StandardUnit.None)
-                                             .withValue(metricValue)
-                                             .withDimensions(dimension);
+    public synchronized void flush() {
+        final Date timestamp = new Date();
+        final List<MetricDatum> metricData = new ArrayList<>();
+
+        for (final String name : values.keySet()) {
+            final ValueAggregate aggregate = values.remove(name);
+            if (aggregate != null && aggregate.count > 0) {
+                metricData.add(statisticDatum(name, StandardUnit.None, timestamp, aggregate.count, aggregate.sum, aggregate.min, aggregate.max));
+            }
+        }
+
+        for (final String name : counters.keySet()) {
+            final Long counter = counters.remove(name);
+            if (counter != null && counter != 0) {
+                metricData.add(valueDatum(name, StandardUnit.Count, timestamp, counter));
+            }
+        }
+
+        latencies.forEach((name, histogram) -> {
+            final LatencyHistogram.Snapshot snapshot = histogram.snapshotAndReset();
+            if (snapshot.getCount() == 0) {
+                return;
+            }
+            lastLatencySnapshots.put(name, snapshot);
+            metricData.add(statisticDatum(name, StandardUnit.Milliseconds, timestamp, snapshot.getCount(), snapshot.getSum(), snapshot.getMin(), snapshot.getMax()));
+            metricData.add(valueDatum(name + "P50", StandardUnit.Milliseconds, timestamp, snapshot.getP50()));
+            metricData.add(valueDatum(name + "P90", StandardUnit.Milliseconds, timestamp, snapshot.getP90()));
+            metricData.add(valueDatum(name + "P99", StandardUnit.Milliseconds, timestamp, snapshot.getP99()));
+        });
+
+        for (int start = 0; start < metricData.size(); start += MAX_DATUMS_PER_REQUEST) {
+            final List<MetricDatum> batch = metricData.subList(start, Math.min(start + MAX_DATUMS_PER_REQUEST, metricData.size()));
+            try {
+                metricSink.putMetricData(new ArrayList<>(batch));
+            } catch (final Exception e) {
+                log.warn("Could not publish {} metrics. {}", batch.size(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private MetricDatum valueDatum(final String name, final StandardUnit unit, final Date timestamp, final double value) {
+        return new MetricDatum().withMetricName(name)
+                                .withUnit(unit)
+                                .withTimestamp(timestamp)
+                                .withValue(value)
+                                .withDimensions(stageDimension);
+    }
 
-        PutMetricDataRequest request = new PutMetricDataRequest().withNamespace(METRIC_NAMESPACE)
-                                                                 .withMetricData(datum);
+    private MetricDatum statisticDatum(final String name, final StandardUnit unit, final Date timestamp,
+                                       final double count, final double sum, final double min, final double max) {
+        final StatisticSet statisticSet = new StatisticSet().withSampleCount(count)
+                                                            .withSum(sum)
+                                                            .withMinimum(min)
+                                                            .withMaximum(max);
 
-        amazonCloudWatchAsync.putMetricData(request);
+        return new MetricDatum().withMetricName(name)
+                                .withUnit(unit)
+                                .withTimestamp(timestamp)
+                                .withStatisticValues(statisticSet)
+                                .withDimensions(stageDimension);
     }
 }
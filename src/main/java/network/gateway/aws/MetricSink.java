@@ -0,0 +1,15 @@
+package network.gateway.aws;
+
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+
+import java.util.List;
+
+/**
+ * Destination for the datums MetricPublisher flushes each interval. Batches never exceed
+ * MetricPublisher.MAX_DATUMS_PER_REQUEST.
+ */
+public interface MetricSink {
+
+    void putMetricData(final List<MetricDatum> metricData);
+
+}
@@ -0,0 +1,15 @@
+package network.gateway.aws;
+
+import java.util.concurrent.Future;
+
+/**
+ * Destination for order notifications published by OrderPublisher.
+ */
+public interface OrderNotificationSink {
+
+    /**
+     * Starts publishing a message and returns without waiting for it to be delivered.
+     */
+    Future<?> publish(final String message);
+
+}
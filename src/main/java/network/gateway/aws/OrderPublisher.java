@@ -1,9 +1,7 @@
 package network.gateway.aws;
 
-import application.AWSConfig;
-import application.Config;
-import com.amazonaws.services.sns.AmazonSNSAsync;
-import com.amazonaws.services.sns.AmazonSNSAsyncClientBuilder;
+import com.google.common.annotations.VisibleForTesting;
+import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import stockstream.cache.InstrumentCache;
@@ -11,10 +9,15 @@ import stockstream.data.OrderResult;
 import stockstream.database.RobinhoodOrder;
 import stockstream.database.RobinhoodOrderRegistry;
 import stockstream.logic.PubSub;
+import stockstream.logic.Scheduler;
 import stockstream.util.JSONUtil;
 
 import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 public class OrderPublisher {
@@ -28,12 +31,46 @@ public class OrderPublisher {
     @Autowired
     private RobinhoodOrderRegistry robinhoodOrderRegistry;
 
+    @Autowired
+    private OrderNotificationSink orderNotificationSink;
+
+    @Autowired
+    private MetricPublisher metricPublisher;
+
+    @Autowired
+    private Scheduler scheduler;
+
+    private static final int QUEUE_CAPACITY = 1000;
+    private static final int MAX_IN_FLIGHT = 25;
+    private static final long PUBLISH_TIMEOUT_MILLIS = 10000;
+
+    @AllArgsConstructor
+    private static class PendingNotification {
+        private final String message;
+        private final long enqueuedAt;
+    }
+
+    private final BlockingQueue<PendingNotification> notificationQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong publishLatencyMillis = new AtomicLong();
+    private final AtomicLong maxPublishLatencyMillis = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
     @PostConstruct
     public void init() {
         pubSub.subscribeFunctionToClassType(this::publishOrderResult, OrderResult.class);
+
+        final Thread publisherThread = new Thread(this::drainNotifications, "orderPublisher");
+        publisherThread.setDaemon(true);
+        publisherThread.start();
+
+        scheduler.scheduleJob(this::publishMetrics, 60, 60, TimeUnit.SECONDS);
     }
 
-    private Void publishOrderResult(final OrderResult orderResult) {
+    @VisibleForTesting
+    Void publishOrderResult(final OrderResult orderResult) {
         if (orderResult.getAction() == null) {
             return null;
         }
@@ -62,8 +99,91 @@ public class OrderPublisher {
             return;
         }
 
-        final AmazonSNSAsync snsClient = AmazonSNSAsyncClientBuilder.standard().withRegion(AWSConfig.AWS_REGION).withCredentials(AWSConfig.PROVIDER).build();
-        snsClient.publish(AWSConfig.ORDERS_SNS_ARN_MAP.get(Config.stage), jsonOrder.get(), "$");
+        if (!notificationQueue.offer(new PendingNotification(jsonOrder.get(), System.currentTimeMillis()))) {
+            dropped.incrementAndGet();
+            log.warn("Order notification queue full, dropping {}.", order);
+        }
+    }
+
+    /**
+     * Sends queued notifications as separate SNS messages, up to MAX_IN_FLIGHT at a time: a burst of orders is
+     * put on the wire back to back and then awaited together, rather than one round trip at a time.
+     */
+    private void drainNotifications() {
+        final List<PendingNotification> inFlight = new ArrayList<>(MAX_IN_FLIGHT);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                inFlight.add(notificationQueue.take());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            notificationQueue.drainTo(inFlight, MAX_IN_FLIGHT - 1);
+
+            sendAndAwait(inFlight);
+            inFlight.clear();
+        }
+    }
+
+    /**
+     * Publishes everything already queued on the calling thread, MAX_IN_FLIGHT messages at a time.
+     */
+    @VisibleForTesting
+    void publishQueued() {
+        final List<PendingNotification> inFlight = new ArrayList<>(MAX_IN_FLIGHT);
+        while (notificationQueue.drainTo(inFlight, MAX_IN_FLIGHT) > 0) {
+            sendAndAwait(inFlight);
+            inFlight.clear();
+        }
+    }
+
+    private void sendAndAwait(final List<PendingNotification> notifications) {
+        final List<Future<?>> sends = new ArrayList<>(notifications.size());
+        for (final PendingNotification notification : notifications) {
+            try {
+                sends.add(orderNotificationSink.publish(notification.message));
+            } catch (final Exception e) {
+                sends.add(null);
+                failures.incrementAndGet();
+                log.warn("Could not publish order notification {}. {}", notification.message, e.getMessage(), e);
+            }
+        }
+
+        for (int i = 0; i < notifications.size(); ++i) {
+            final Future<?> send = sends.get(i);
+            if (send == null) {
+                continue;
+            }
+
+            final PendingNotification notification = notifications.get(i);
+            try {
+                send.get(PUBLISH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+                final long latency = System.currentTimeMillis() - notification.enqueuedAt;
+                published.incrementAndGet();
+                publishLatencyMillis.addAndGet(latency);
+                maxPublishLatencyMillis.accumulateAndGet(latency, Math::max);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (final ExecutionException | TimeoutException e) {
+                failures.incrementAndGet();
+                log.warn("Could not publish order notification {}. {}", notification.message, e.getMessage(), e);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    void publishMetrics() {
+        final long publishedCount = published.getAndSet(0);
+        final long totalLatency = publishLatencyMillis.getAndSet(0);
+
+        metricPublisher.publishMetric("OrderNotificationsPublished", publishedCount);
+        metricPublisher.publishMetric("OrderNotificationLatencyAvg", publishedCount == 0 ? 0 : (double) totalLatency / publishedCount);
+        metricPublisher.publishMetric("OrderNotificationLatencyMax", maxPublishLatencyMillis.getAndSet(0));
+        metricPublisher.publishMetric("OrderNotificationFailures", failures.getAndSet(0));
+        metricPublisher.publishMetric("OrderNotificationsDropped", dropped.getAndSet(0));
+        metricPublisher.publishMetric("OrderNotificationQueueDepth", notificationQueue.size());
     }
 
 }
@@ -0,0 +1,217 @@
+package network.gateway.aws;
+
+import application.Config;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import data.LatencyStage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import stockstream.database.PlayerVote;
+import stockstream.database.PlayerVoteRegistry;
+import stockstream.logic.Scheduler;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind persistence for player votes. Rounds hand their votes over and return immediately; a dedicated
+ * thread saves them in chunks with retries. Chunks that still fail are appended to a local spill file as JSON
+ * lines and replayed once the database accepts writes again.
+ */
+@Slf4j
+public class PlayerVoteWriter {
+
+    private static final int QUEUE_CAPACITY = 50000;
+    private static final int CHUNK_SIZE = 500;
+    private static final int SAVE_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MILLIS = 250;
+
+    @Autowired
+    private PlayerVoteRegistry playerVoteRegistry;
+
+    @Autowired
+    private MetricPublisher metricPublisher;
+
+    @Autowired
+    private Scheduler scheduler;
+
+    private final Path spillFile;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final BlockingQueue<PlayerVote> pendingVotes = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+
+    private volatile boolean spillPending;
+
+    public PlayerVoteWriter() {
+        this(Paths.get(Config.PLAYER_VOTE_SPILL_FILE));
+    }
+
+    public PlayerVoteWriter(final Path spillFile) {
+        this.spillFile = spillFile;
+        this.spillPending = Files.exists(spillFile) || Files.exists(replayFile());
+    }
+
+    @PostConstruct
+    public void init() {
+        final Thread writerThread = new Thread(this::writeVotes, "playerVoteWriter");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        scheduler.scheduleJob(this::publishMetrics, 60, 60, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queues votes for saving. If the queue is full the overflow goes straight to the spill file.
+     */
+    public void submit(final Collection<PlayerVote> playerVotes) {
+        final List<PlayerVote> overflow = new ArrayList<>();
+        playerVotes.forEach(playerVote -> {
+            if (!pendingVotes.offer(playerVote)) {
+                overflow.add(playerVote);
+            }
+        });
+
+        if (!overflow.isEmpty()) {
+            log.warn("Player vote queue full, spilling {} votes.", overflow.size());
+            spill(overflow);
+        }
+    }
+
+    public int getBacklog() {
+        return pendingVotes.size();
+    }
+
+    private void writeVotes() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                writeNextChunk(pendingVotes.take());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Saves the given vote plus whatever else is queued, up to one chunk, then replays the spill file if the
+     * save went through.
+     */
+    @VisibleForTesting
+    protected void writeNextChunk(final PlayerVote firstVote) throws InterruptedException {
+        final List<PlayerVote> chunk = new ArrayList<>(CHUNK_SIZE);
+        chunk.add(firstVote);
+        pendingVotes.drainTo(chunk, CHUNK_SIZE - 1);
+
+        if (!save(chunk)) {
+            spill(chunk);
+            return;
+        }
+
+        if (spillPending) {
+            replaySpill();
+        }
+    }
+
+    private boolean save(final List<PlayerVote> chunk) throws InterruptedException {
+        for (int attempt = 1; attempt <= SAVE_ATTEMPTS; ++attempt) {
+            final long saveStart = System.currentTimeMillis();
+            try {
+                playerVoteRegistry.savePlayerVotes(chunk);
+                metricPublisher.recordLatency(LatencyStage.ROUND_PERSIST, System.currentTimeMillis() - saveStart);
+                return true;
+            } catch (final Exception e) {
+                log.warn("Saving {} player votes failed on attempt {}. {}", chunk.size(), attempt, e.getMessage(), e);
+                if (attempt < SAVE_ATTEMPTS) {
+                    Thread.sleep(RETRY_BACKOFF_MILLIS << (attempt - 1));
+                }
+            }
+        }
+        return false;
+    }
+
+    private synchronized void spill(final List<PlayerVote> playerVotes) {
+        try (final BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                                                                   StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (final PlayerVote playerVote : playerVotes) {
+                writer.write(objectMapper.writeValueAsString(playerVote));
+                writer.newLine();
+            }
+            spillPending = true;
+            metricPublisher.incrementCounter("PlayerVotesSpilled", playerVotes.size());
+        } catch (final IOException e) {
+            log.error("Could not spill {} player votes to {}, they are lost. {}", playerVotes.size(), spillFile, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Moves the spill file aside and saves its votes chunk by chunk. Chunks that fail again are spilled to a
+     * fresh file, so nothing is read twice.
+     */
+    private void replaySpill() throws InterruptedException {
+        final Path replayFile = replayFile();
+        final List<PlayerVote> spilledVotes = new ArrayList<>();
+
+        synchronized (this) {
+            try {
+                if (Files.exists(replayFile)) {
+                    log.info("Resuming replay of {} left over from a previous run.", replayFile);
+                } else {
+                    Files.move(spillFile, replayFile);
+                    spillPending = false;
+                }
+            } catch (final NoSuchFileException e) {
+                spillPending = false;
+                return;
+            } catch (final IOException e) {
+                log.warn("Could not move spill file {} for replay. {}", spillFile, e.getMessage(), e);
+                return;
+            }
+        }
+
+        try {
+            for (final String line : Files.readAllLines(replayFile, StandardCharsets.UTF_8)) {
+                if (!line.isEmpty()) {
+                    spilledVotes.add(objectMapper.readValue(line, PlayerVote.class));
+                }
+            }
+        } catch (final IOException e) {
+            log.error("Could not read spilled player votes from {}. {}", replayFile, e.getMessage(), e);
+            return;
+        }
+
+        log.info("Replaying {} spilled player votes.", spilledVotes.size());
+        for (final List<PlayerVote> chunk : Lists.partition(spilledVotes, CHUNK_SIZE)) {
+            if (!save(chunk)) {
+                spill(chunk);
+            } else {
+                metricPublisher.incrementCounter("PlayerVotesReplayed", chunk.size());
+            }
+        }
+
+        try {
+            Files.deleteIfExists(replayFile);
+        } catch (final IOException e) {
+            log.warn("Could not delete replayed spill file {}. {}", replayFile, e.getMessage(), e);
+        }
+    }
+
+    private Path replayFile() {
+        return spillFile.resolveSibling(spillFile.getFileName() + ".replaying");
+    }
+
+    private void publishMetrics() {
+        metricPublisher.publishMetric("PlayerVoteBacklog", getBacklog());
+    }
+
+}
@@ -1,6 +1,7 @@
 package network.gateway.aws;
 
 import cache.LastOrderCache;
+import cache.WalletViewCache;
 import data.RoundResult;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.digest.DigestUtils;
@@ -12,7 +13,6 @@ import stockstream.data.OrderResult;
 import stockstream.data.TradeCommand;
 import stockstream.data.Voter;
 import stockstream.database.PlayerVote;
-import stockstream.database.PlayerVoteRegistry;
 import stockstream.util.TimeUtil;
 
 import java.util.*;
@@ -27,11 +27,16 @@ public class RoundPublisher {
     private AssetComputer assetComputer;
 
     @Autowired
-    private PlayerVoteRegistry playerVoteRegistry;
+    private PlayerVoteWriter playerVoteWriter;
+
+    @Autowired
+    private WalletViewCache walletViewCache;
 
     public void publishRoundResult(final RoundResult roundResult) {
         lastOrderCache.updateLastRoundResult(roundResult);
 
+        roundResult.getPlayerToCommand().keySet().forEach(voter -> walletViewCache.invalidate(voter.getPlayerId()));
+
         log.info("Uploading {} player votes.", roundResult.getPlayerToCommand().size());
 
         if (CollectionUtils.isEmpty(roundResult.getRankedTradeCommands().keySet())) {
@@ -56,7 +61,7 @@ public class RoundPublisher {
             return;
         }
 
-        playerVoteRegistry.savePlayerVotes(playerVotes);
+        playerVoteWriter.submit(playerVotes);
     }
 
     private PlayerVote createPlayerVoteFromCommand(final String username, final TradeCommand tradeCommand, final long timestamp, final String dateStr, final OrderResult orderResult) {
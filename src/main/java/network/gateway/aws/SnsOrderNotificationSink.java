@@ -0,0 +1,29 @@
+package network.gateway.aws;
+
+import application.AWSConfig;
+import com.amazonaws.services.sns.AmazonSNSAsync;
+import com.amazonaws.services.sns.AmazonSNSAsyncClientBuilder;
+
+import java.util.concurrent.Future;
+
+/**
+ * Publishes order notifications to an SNS topic through one long-lived async client, one SNS message per
+ * notification.
+ */
+public class SnsOrderNotificationSink implements OrderNotificationSink {
+
+    private final String topicArn;
+
+    private final AmazonSNSAsync snsClient =
+            AmazonSNSAsyncClientBuilder.standard().withRegion(AWSConfig.AWS_REGION).withCredentials(AWSConfig.PROVIDER).build();
+
+    public SnsOrderNotificationSink(final String topicArn) {
+        this.topicArn = topicArn;
+    }
+
+    @Override
+    public Future<?> publish(final String message) {
+        return snsClient.publishAsync(topicArn, message, "$");
+    }
+
+}
@@ -0,0 +1,113 @@
+package network.gateway.twitch;
+
+import cache.SymbolIndex;
+import data.ChatMessage;
+import logic.voting.VoteEngine;
+import logic.wallet.WalletBot;
+import lombok.extern.slf4j.Slf4j;
+import network.gateway.aws.MetricPublisher;
+import org.pircbotx.hooks.ListenerAdapter;
+import org.pircbotx.hooks.events.MessageEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import stockstream.logic.Scheduler;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Single chat listener. Routes each command through a ChatRouter on the IRC thread, feeds votes to the
+ * VoteEngine and hands the I/O heavy commands to the lane that runs them, so a slow quote, wallet or order
+ * lookup never holds up message dispatch.
+ */
+@Slf4j
+public class ChatDispatcher extends ListenerAdapter {
+
+    @Autowired
+    private Responder responder;
+
+    @Autowired
+    private WalletBot walletBot;
+
+    @Autowired
+    private VoteEngine voteEngine;
+
+    @Autowired
+    private SymbolIndex symbolIndex;
+
+    @Autowired
+    private MetricPublisher metricPublisher;
+
+    @Autowired
+    private Scheduler scheduler;
+
+    private final ChatLane quoteLane = new ChatLane("Quote", 4, 200, ChatLane.ShedPolicy.DROP_OLDEST);
+    private final ChatLane walletLane = new ChatLane("Wallet", 4, 200, ChatLane.ShedPolicy.DROP_OLDEST);
+    private final ChatLane ordersLane = new ChatLane("Orders", 1, 20, ChatLane.ShedPolicy.DROP_NEWEST);
+    private final ChatLane accountLane = new ChatLane("Account", 2, 100, ChatLane.ShedPolicy.DROP_NEWEST);
+
+    private ChatRouter chatRouter;
+
+    @PostConstruct
+    public void init() {
+        chatRouter = new ChatRouter().withActivityListener(voteEngine::recordActivePlayer)
+                                     .withCommandListener(voteEngine::onChatMessage)
+                                     .withRoute("!orders", onLane(ordersLane, responder::handleOrders))
+                                     .withRoute("!balance", onLane(accountLane, responder::handleBalance))
+                                     .withRoute("!last", onLane(accountLane, responder::handleLast))
+                                     .withRoute("!robinhood", onLane(accountLane, responder::handleReferral))
+                                     .withRoute("#", onLane(walletLane, walletBot::handleWallet))
+                                     .withRoute("#w", onLane(walletLane, walletBot::handleWallet))
+                                     .withRoute("#wallet", onLane(walletLane, walletBot::handleWallet))
+                                     .withRoute("!score", onLane(walletLane, walletBot::handleWallet))
+                                     .withRoute("#last", onLane(walletLane, walletBot::handleLastOrder))
+                                     .withFallbackHandler(this::routeSymbol);
+
+        scheduler.scheduleJob(this::publishMetrics, 60, 60, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void onMessage(final MessageEvent event) {
+        if (event.getUser() == null) {
+            return;
+        }
+
+        final boolean isSubscriber = "1".equals(event.getTags().getOrDefault("subscriber", "0"));
+        chatRouter.route(event.getMessage(), event.getUser().getNick(), event.getChannelSource(), isSubscriber, event.getTimestamp());
+    }
+
+    private void routeSymbol(final ChatMessage message) {
+        if (message.getPrefix() != '!') {
+            return;
+        }
+
+        final String symbol = symbolIndex.find(message.getCommand());
+        if (symbol == null) {
+            return;
+        }
+
+        quoteLane.submit(() -> responder.handleSymbol(message, symbol));
+    }
+
+    private static Consumer<ChatMessage> onLane(final ChatLane lane, final Consumer<ChatMessage> handler) {
+        return message -> lane.submit(() -> handler.accept(message));
+    }
+
+    private void publishMetrics() {
+        publishLaneMetrics(quoteLane);
+        publishLaneMetrics(walletLane);
+        publishLaneMetrics(ordersLane);
+        publishLaneMetrics(accountLane);
+    }
+
+    private void publishLaneMetrics(final ChatLane lane) {
+        final ChatLane.Stats stats = lane.snapshotAndReset();
+        metricPublisher.publishMetric(lane.getName() + "LaneHandled", stats.getHandled());
+        metricPublisher.publishMetric(lane.getName() + "LaneHandlerLatencyAvg", stats.getAverageHandlerMillis());
+        metricPublisher.publishMetric(lane.getName() + "LaneHandlerLatencyMax", stats.getMaxHandlerMillis());
+        metricPublisher.publishMetric(lane.getName() + "LaneQueueWaitAvg", stats.getAverageQueueWaitMillis());
+        metricPublisher.publishMetric(lane.getName() + "LaneDropped", stats.getDropped());
+        metricPublisher.publishMetric(lane.getName() + "LaneQueueDepth", stats.getQueueDepth());
+    }
+
+}
@@ -0,0 +1,121 @@
+package network.gateway.twitch;
+
+import com.google.common.annotations.VisibleForTesting;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded worker pool for one kind of chat command. When the queue is full the lane sheds work according to
+ * its policy instead of blocking the IRC thread.
+ */
+@Slf4j
+public class ChatLane {
+
+    public enum ShedPolicy {
+        DROP_NEWEST,
+        DROP_OLDEST
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Stats {
+        private final long handled;
+        private final double averageHandlerMillis;
+        private final long maxHandlerMillis;
+        private final double averageQueueWaitMillis;
+        private final long dropped;
+        private final int queueDepth;
+    }
+
+    @Getter
+    private final String name;
+
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong handled = new AtomicLong();
+    private final AtomicLong handlerMillis = new AtomicLong();
+    private final AtomicLong maxHandlerMillis = new AtomicLong();
+    private final AtomicLong queueWaitMillis = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public ChatLane(final String name, final int threads, final int queueCapacity, final ShedPolicy shedPolicy) {
+        this.name = name;
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                                               new ArrayBlockingQueue<>(queueCapacity),
+                                               r -> {
+                                                   final Thread thread = new Thread(r, String.format("chat%s-%s", name, threadCount.getAndIncrement()));
+                                                   thread.setDaemon(true);
+                                                   return thread;
+                                               },
+                                               rejectionHandler(shedPolicy));
+    }
+
+    public void submit(final Runnable handler) {
+        final long enqueuedAt = System.currentTimeMillis();
+        executor.execute(() -> {
+            final long startedAt = System.currentTimeMillis();
+            try {
+                handler.run();
+            } catch (final Exception e) {
+                log.warn("Chat handler failed on lane {}. {}", name, e.getMessage(), e);
+            } finally {
+                final long elapsed = System.currentTimeMillis() - startedAt;
+                handled.incrementAndGet();
+                handlerMillis.addAndGet(elapsed);
+                maxHandlerMillis.accumulateAndGet(elapsed, Math::max);
+                queueWaitMillis.addAndGet(startedAt - enqueuedAt);
+            }
+        });
+    }
+
+    public Stats snapshotAndReset() {
+        final long handledCount = handled.getAndSet(0);
+        final long totalHandlerMillis = handlerMillis.getAndSet(0);
+        final long totalQueueWaitMillis = queueWaitMillis.getAndSet(0);
+
+        return new Stats(handledCount,
+                         handledCount == 0 ? 0 : (double) totalHandlerMillis / handledCount,
+                         maxHandlerMillis.getAndSet(0),
+                         handledCount == 0 ? 0 : (double) totalQueueWaitMillis / handledCount,
+                         dropped.getAndSet(0),
+                         executor.getQueue().size());
+    }
+
+    /**
+     * Stops taking work and waits for everything already queued to finish, including its stats.
+     */
+    @VisibleForTesting
+    boolean shutdownAndAwait(final long timeoutMillis) throws InterruptedException {
+        executor.shutdown();
+        return executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private RejectedExecutionHandler rejectionHandler(final ShedPolicy shedPolicy) {
+        return (runnable, pool) -> {
+            dropped.incrementAndGet();
+            if (pool.isShutdown()) {
+                return;
+            }
+
+            if (ShedPolicy.DROP_OLDEST.equals(shedPolicy)) {
+                pool.getQueue().poll();
+                if (pool.getQueue().offer(runnable)) {
+                    return;
+                }
+            }
+            log.debug("Chat lane {} full, dropped a message.", name);
+        };
+    }
+
+}
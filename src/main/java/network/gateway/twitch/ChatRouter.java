@@ -0,0 +1,85 @@
+package network.gateway.twitch;
+
+import data.ChatMessage;
+import stockstream.data.Voter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Tokenizes each chat line once and dispatches it through a handler table keyed by prefix and command.
+ * Lines that do not start with '!' or '#' are dropped after a single character check.
+ */
+public class ChatRouter {
+
+    private final Map<String, Consumer<ChatMessage>> routes = new HashMap<>();
+
+    private Consumer<String> activityListener = nick -> {};
+    private Consumer<ChatMessage> commandListener = message -> {};
+    private Consumer<ChatMessage> fallbackHandler = message -> {};
+
+    /**
+     * Called with the sender of every line, command or not.
+     */
+    public ChatRouter withActivityListener(final Consumer<String> activityListener) {
+        this.activityListener = activityListener;
+        return this;
+    }
+
+    /**
+     * Called with every command before it is routed, e.g. to collect votes.
+     */
+    public ChatRouter withCommandListener(final Consumer<ChatMessage> commandListener) {
+        this.commandListener = commandListener;
+        return this;
+    }
+
+    public ChatRouter withRoute(final String route, final Consumer<ChatMessage> handler) {
+        routes.put(route, handler);
+        return this;
+    }
+
+    /**
+     * Handles commands without a registered route.
+     */
+    public ChatRouter withFallbackHandler(final Consumer<ChatMessage> fallbackHandler) {
+        this.fallbackHandler = fallbackHandler;
+        return this;
+    }
+
+    public boolean route(final String message, final String nick, final String channel, final boolean isSubscriber) {
+        return route(message, nick, channel, isSubscriber, System.currentTimeMillis());
+    }
+
+    /**
+     * @param receivedAt when the line arrived from IRC, carried on the ChatMessage.
+     * @return true if the line was a command.
+     */
+    public boolean route(final String message, final String nick, final String channel, final boolean isSubscriber, final long receivedAt) {
+        activityListener.accept(nick);
+
+        if (message == null) {
+            return false;
+        }
+
+        final String line = message.trim();
+        if (line.isEmpty()) {
+            return false;
+        }
+
+        final char prefix = line.charAt(0);
+        if (prefix != '!' && prefix != '#') {
+            return false;
+        }
+
+        final Voter voter = new Voter(nick, "twitch", channel, isSubscriber);
+        final ChatMessage chatMessage = ChatMessage.tokenize(line, voter, channel, receivedAt);
+
+        commandListener.accept(chatMessage);
+
+        routes.getOrDefault(chatMessage.getRoute(), fallbackHandler).accept(chatMessage);
+        return true;
+    }
+
+}
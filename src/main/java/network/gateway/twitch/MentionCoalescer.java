@@ -0,0 +1,100 @@
+package network.gateway.twitch;
+
+import application.Config;
+import com.google.common.annotations.VisibleForTesting;
+import lombok.extern.slf4j.Slf4j;
+import network.gateway.aws.MetricPublisher;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects identical replies to the same channel for a short window and sends them as one message mentioning
+ * everyone who asked, split only where the mentions would run past the chat message limit.
+ */
+@Slf4j
+public class MentionCoalescer {
+
+    @Autowired
+    private OutboundChat outboundChat;
+
+    @Autowired
+    private MetricPublisher metricPublisher;
+
+    private final long windowMillis;
+
+    // Channel and reply to the users waiting on it, in the order they asked.
+    private final Map<List<String>, Set<String>> pendingReplies = new LinkedHashMap<>();
+
+    private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "mentionCoalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MentionCoalescer() {
+        this(Config.MENTION_COALESCE_WINDOW_MILLIS);
+    }
+
+    public MentionCoalescer(final long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    public void reply(final String channel, final String username, final String response) {
+        final List<String> key = Arrays.asList(channel, response);
+
+        final boolean firstInWindow;
+        synchronized (pendingReplies) {
+            final Set<String> usernames = pendingReplies.computeIfAbsent(key, k -> new LinkedHashSet<>());
+            firstInWindow = usernames.isEmpty();
+            usernames.add(username);
+        }
+
+        if (firstInWindow) {
+            flushExecutor.schedule(() -> flush(key), windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @VisibleForTesting
+    protected void flush(final List<String> key) {
+        final Set<String> usernames;
+        synchronized (pendingReplies) {
+            usernames = pendingReplies.remove(key);
+        }
+        if (usernames == null || usernames.isEmpty()) {
+            return;
+        }
+
+        final String channel = key.get(0);
+        final String response = key.get(1);
+
+        int messages = 0;
+        StringBuilder mentions = new StringBuilder();
+        for (final String username : usernames) {
+            final String mention = "@" + username + " ";
+            if (mentions.length() > 0 && mentions.length() + mention.length() + response.length() > Config.CHAT_MESSAGE_MAX_LENGTH) {
+                outboundChat.send(channel, mentions + response, OutboundChat.Priority.INFO);
+                mentions = new StringBuilder();
+                ++messages;
+            }
+            mentions.append(mention);
+        }
+        outboundChat.send(channel, mentions + response, OutboundChat.Priority.INFO);
+        ++messages;
+
+        metricPublisher.incrementCounter("CoalescedMentions", usernames.size() - messages);
+    }
+
+    @VisibleForTesting
+    protected void flushAll() {
+        final List<List<String>> keys;
+        synchronized (pendingReplies) {
+            keys = new ArrayList<>(pendingReplies.keySet());
+        }
+        keys.forEach(this::flush);
+    }
+
+}
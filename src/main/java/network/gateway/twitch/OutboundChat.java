@@ -0,0 +1,164 @@
+package network.gateway.twitch;
+
+import application.Config;
+import com.google.common.annotations.VisibleForTesting;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import network.gateway.aws.MetricPublisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import stockstream.logic.Scheduler;
+import stockstream.twitch.TwitchChat;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every chat reply goes through here instead of straight to TwitchChat. Replies are handed over at the rate chat
+ * can take them, highest priority first, with waiting replies to the same channel merged into one line. Replies
+ * that waited past their priority's deadline are dropped rather than answered minutes late.
+ */
+@Slf4j
+public class OutboundChat {
+
+    @Getter
+    public enum Priority {
+        ROUND_RESULT(Long.MAX_VALUE),
+        WALLET_ORDER(60_000),
+        INFO(15_000);
+
+        private final long maxAgeMillis;
+
+        Priority(final long maxAgeMillis) {
+            this.maxAgeMillis = maxAgeMillis;
+        }
+    }
+
+    private static final String SEPARATOR = " | ";
+
+    @AllArgsConstructor
+    private static class Reply {
+        // null for a broadcast to every channel.
+        private final String channel;
+        private final String message;
+        private final long enqueuedAt;
+    }
+
+    @Autowired
+    private TwitchChat twitchChat;
+
+    @Autowired
+    private MetricPublisher metricPublisher;
+
+    @Autowired
+    private Scheduler scheduler;
+
+    // Guarded by itself.
+    private final Map<Priority, Deque<Reply>> priorityToReplies = new EnumMap<>(Priority.class);
+
+    private final ScheduledExecutorService senderExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "outboundChat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OutboundChat() {
+        for (final Priority priority : Priority.values()) {
+            priorityToReplies.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        senderExecutor.scheduleWithFixedDelay(this::sendNext, Config.OUTBOUND_CHAT_INTERVAL_MILLIS, Config.OUTBOUND_CHAT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        scheduler.scheduleJob(this::publishMetrics, 60, 60, TimeUnit.SECONDS);
+    }
+
+    public void send(final String channel, final String message, final Priority priority) {
+        enqueue(new Reply(channel, message, System.currentTimeMillis()), priority);
+    }
+
+    public void broadcast(final String message, final Priority priority) {
+        enqueue(new Reply(null, message, System.currentTimeMillis()), priority);
+    }
+
+    private void enqueue(final Reply reply, final Priority priority) {
+        synchronized (priorityToReplies) {
+            priorityToReplies.get(priority).add(reply);
+        }
+    }
+
+    /**
+     * Hands the oldest reply of the highest waiting priority to TwitchChat, merged with later replies of that
+     * priority to the same channel while the line stays under the chat message limit.
+     *
+     * @return false if nothing was waiting.
+     */
+    @VisibleForTesting
+    protected boolean sendNext() {
+        final long now = System.currentTimeMillis();
+
+        Reply first = null;
+        final StringBuilder merged = new StringBuilder();
+
+        synchronized (priorityToReplies) {
+            for (final Priority priority : Priority.values()) {
+                final Deque<Reply> replies = priorityToReplies.get(priority);
+
+                final Iterator<Reply> iterator = replies.iterator();
+                while (iterator.hasNext()) {
+                    final Reply reply = iterator.next();
+                    final long age = now - reply.enqueuedAt;
+
+                    if (age > priority.getMaxAgeMillis()) {
+                        iterator.remove();
+                        metricPublisher.incrementCounter("OutboundChatDropped" + priority.name(), 1);
+                        continue;
+                    }
+
+                    if (first == null) {
+                        first = reply;
+                        merged.append(reply.message);
+                    } else if (Objects.equals(first.channel, reply.channel) &&
+                               merged.length() + SEPARATOR.length() + reply.message.length() <= Config.CHAT_MESSAGE_MAX_LENGTH) {
+                        merged.append(SEPARATOR).append(reply.message);
+                    } else {
+                        continue;
+                    }
+
+                    iterator.remove();
+                    metricPublisher.recordLatency("OutboundChatQueueAge" + priority.name(), age);
+                }
+
+                if (first != null) {
+                    break;
+                }
+            }
+        }
+
+        if (first == null) {
+            return false;
+        }
+
+        try {
+            if (first.channel == null) {
+                twitchChat.broadcastMessage(merged.toString());
+            } else {
+                twitchChat.enqueueMessage(first.channel, merged.toString());
+            }
+        } catch (final RuntimeException e) {
+            log.warn("Could not send chat message to {}. {}", first.channel, e.getMessage(), e);
+        }
+        return true;
+    }
+
+    private void publishMetrics() {
+        synchronized (priorityToReplies) {
+            priorityToReplies.forEach((priority, replies) -> metricPublisher.publishMetric("OutboundChatQueueDepth" + priority.name(), replies.size()));
+        }
+    }
+
+}
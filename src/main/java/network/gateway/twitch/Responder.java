@@ -1,34 +1,33 @@
 package network.gateway.twitch;
 
+import application.Config;
 import cache.LastOrderCache;
+import cache.QuoteCache;
 import com.cheddar.robinhood.data.Quote;
 import com.cheddar.robinhood.exception.RobinhoodException;
-import com.google.common.collect.ImmutableList;
+import data.ChatMessage;
+import logic.wallet.WalletStore;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.StringUtils;
-import org.pircbotx.hooks.ListenerAdapter;
-import org.pircbotx.hooks.events.MessageEvent;
 import org.springframework.beans.factory.annotation.Autowired;
 import stockstream.cache.BrokerCache;
-import stockstream.cache.InstrumentCache;
 import stockstream.computer.AssetComputer;
 import stockstream.computer.QuoteComputer;
+import stockstream.data.OrderResult;
 import stockstream.data.Voter;
 import stockstream.database.*;
-import stockstream.twitch.TwitchChat;
+import stockstream.logic.PubSub;
 import stockstream.util.TimeUtil;
+import utils.MemoizedValue;
 
+import javax.annotation.PostConstruct;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 @Slf4j
-public class Responder extends ListenerAdapter {
-
-    @Autowired
-    private InstrumentCache instrumentCache;
+public class Responder {
 
     @Autowired
     private BrokerCache brokerCache;
@@ -42,150 +41,152 @@ public class Responder extends ListenerAdapter {
     @Autowired
     private LastOrderCache lastOrderCache;
 
+    @Autowired
+    private QuoteCache quoteCache;
+
     @Autowired
     private WalletRegistry walletRegistry;
 
     @Autowired
-    private RobinhoodOrderRegistry robinhoodOrderRegistry;
+    private WalletStore walletStore;
 
     @Autowired
-    private TwitchChat twitchChat;
+    private RobinhoodOrderRegistry robinhoodOrderRegistry;
 
-    @Override
-    public void onMessage(final MessageEvent event) {
-        final String eventMessage = event.getMessage();
-        if (StringUtils.isEmpty(eventMessage)) {
-            return;
-        }
+    @Autowired
+    private OutboundChat outboundChat;
 
-        if (!eventMessage.startsWith("!")) {
-            return;
-        }
+    @Autowired
+    private MentionCoalescer mentionCoalescer;
 
-        if (event.getUser() == null) {
-            return;
-        }
+    @Autowired
+    private PubSub pubSub;
 
-        final boolean isSubscriber = "1".equals(event.getTags().getOrDefault("subscriber", "0"));
-        final String fromChannel = event.getChannelSource();
-        final String sender = event.getUser().getNick();
-        final Voter voter = new Voter(sender, "twitch", fromChannel, isSubscriber);
+    private final MemoizedValue<String> ordersResponse = new MemoizedValue<>(this::constructOrdersResponse, Config.GLOBAL_RESPONSE_TTL_MILLIS);
+    private final MemoizedValue<String> balanceResponse = new MemoizedValue<>(this::constructBalanceResponse, Config.GLOBAL_RESPONSE_TTL_MILLIS);
 
-        if (instrumentCache.getValidSymbols().contains(eventMessage.substring(1).toUpperCase())) {
-            final String[] parts = eventMessage.split(" ");
+    @PostConstruct
+    public void init() {
+        pubSub.subscribeFunctionToClassType(this::onOrderResult, OrderResult.class);
+    }
 
-            Voter voterToCheck = voter;
+    private Void onOrderResult(final OrderResult orderResult) {
+        ordersResponse.invalidate();
+        balanceResponse.invalidate();
+        return null;
+    }
 
-            if (parts.length == 2 && parts[1].startsWith("@")) {
-                voterToCheck = new Voter(parts[1].substring(1).toLowerCase(), "twitch", fromChannel, false);
-            }
+    public void handleSymbol(final ChatMessage message, final String symbol) {
+        final Voter voter = message.getVoter();
+        final String fromChannel = message.getChannel();
+        final String sender = voter.getUsername();
+
+        final Voter voterToCheck = message.getMention()
+                                          .map(mention -> new Voter(mention, "twitch", fromChannel, false))
+                                          .orElse(voter);
+
+        final StringBuilder stringBuilder = new StringBuilder();
+        if (brokerCache.getSymbolToAsset().containsKey(symbol)) {
+            final Asset asset = brokerCache.getSymbolToAsset().get(symbol);
+            final double percentReturn = assetComputer.computePercentReturn(asset);
+            final double portfolioPercent = (assetComputer.computeAssetValue(asset)/brokerCache.getAccountTotalAssets())*100;
+            final int ownedPublicShares = assetComputer.getPublicOwnedPositions(symbol, voterToCheck.getPlayerId()).size();
+            final int ownedWalletShares = assetComputer.getWalletOwnedPositions(symbol, voterToCheck.getPlayerId()).size();
+            final int ownedTotalShares = ownedPublicShares + ownedWalletShares;
+
+            stringBuilder.append(String.format("%s owns %s of the %s shares of %s @ $%.2f representing %.2f%% of the portfolio with a return of %.2f%%.",
+                                               voterToCheck.getUsername(), ownedTotalShares, asset.getShares(), asset.getSymbol(), asset.getAvgBuyPrice(), portfolioPercent, percentReturn));
+
+        } else {
+            stringBuilder.append(String.format("Own 0 shares of %s.", symbol));
+        }
 
+        try {
+            final Quote stockQuote = quoteCache.getQuote(symbol);
+            final double mostRecentPrice = quoteComputer.computeMostRecentPrice(stockQuote);
+            final double percentChange = quoteComputer.computePercentChange(stockQuote);
 
-            final String symbol = eventMessage.substring(1).toUpperCase();
-            final StringBuilder stringBuilder = new StringBuilder();
-            if (brokerCache.getSymbolToAsset().containsKey(symbol)) {
-                final Asset asset = brokerCache.getSymbolToAsset().get(symbol);
-                final double percentReturn = assetComputer.computePercentReturn(asset);
-                final double portfolioPercent = (assetComputer.computeAssetValue(asset)/brokerCache.getAccountTotalAssets())*100;
-                final int ownedPublicShares = assetComputer.getPublicOwnedPositions(symbol, voterToCheck.getPlayerId()).size();
-                final int ownedWalletShares = assetComputer.getWalletOwnedPositions(symbol, voterToCheck.getPlayerId()).size();
-                final int ownedTotalShares = ownedPublicShares + ownedWalletShares;
+            stringBuilder.append(String.format(" %s last price is around $%.2f. Bid [%s @ $%.2f] Ask [%s @ $%.2f]",
+                                               symbol, mostRecentPrice, stockQuote.getBid_size(), stockQuote.getBid_price(),
+                                               stockQuote.getAsk_size(), stockQuote.getAsk_price()));
 
-                stringBuilder.append(String.format("%s owns %s of the %s shares of %s @ $%.2f representing %.2f%% of the portfolio with a return of %.2f%%.",
-                                                   voterToCheck.getUsername(), ownedTotalShares, asset.getShares(), asset.getSymbol(), asset.getAvgBuyPrice(), portfolioPercent, percentReturn));
+            final String changeOperand = percentChange < 0 ? "" : "+";
+            stringBuilder.append(String.format(" Today %s%.2f%%.", changeOperand, percentChange));
+        } catch (final RobinhoodException e) {
+            log.warn("No quote for symbol {}", symbol, e);
+        }
 
-            } else {
-                stringBuilder.append(String.format("Own 0 shares of %s.", symbol));
-            }
+        stringBuilder.append(" https://stockstream.live/symbol/").append(symbol);
 
-            try {
-                final Quote stockQuote = assetComputer.loadSymbolToQuote(Collections.singleton(symbol)).get(symbol);
-                final double mostRecentPrice = quoteComputer.computeMostRecentPrice(stockQuote);
-                final double percentChange = quoteComputer.computePercentChange(stockQuote);
-
-                stringBuilder.append(String.format(" %s last price is around $%.2f. Bid [%s @ $%.2f] Ask [%s @ $%.2f]",
-                                                   symbol, mostRecentPrice, stockQuote.getBid_size(), stockQuote.getBid_price(),
-                                                   stockQuote.getAsk_size(), stockQuote.getAsk_price()));
-
-                final String changeOperand = percentChange < 0 ? "" : "+";
-                stringBuilder.append(String.format(" Today %s%.2f%%.", changeOperand, percentChange));
-            } catch (final RobinhoodException e) {
-                log.warn("No quote for symbol {}", symbol, e);
-            }
+        outboundChat.send(fromChannel, String.format("@%s %s", sender, stringBuilder.toString()), OutboundChat.Priority.INFO);
+    }
 
-            stringBuilder.append(" https://stockstream.live/symbol/").append(symbol);
+    public void handleOrders(final ChatMessage message) {
+        mentionCoalescer.reply(message.getChannel(), message.getVoter().getUsername(), ordersResponse.get());
+    }
 
-            twitchChat.enqueueMessage(fromChannel, String.format("@%s %s", sender, stringBuilder.toString()));
-        }
+    public void handleBalance(final ChatMessage message) {
+        mentionCoalescer.reply(message.getChannel(), message.getVoter().getUsername(), balanceResponse.get());
+    }
 
-        if ("!orders".equalsIgnoreCase(eventMessage)) {
-            final StringBuilder stringBuilder = new StringBuilder();
+    private String constructOrdersResponse() {
+        final List<RobinhoodOrder> pendingOrders = robinhoodOrderRegistry.retrievePendingRobinhoodOrders(TimeUtil.getStartOfToday());
+        final List<String> orderStrings = new ArrayList<>();
+        pendingOrders.forEach(order -> orderStrings.add(String.format("%s %s @ $%.2f", order.getSide(), order.getSymbol(), Double.valueOf(order.getPrice()))));
 
-            final List<RobinhoodOrder> pendingOrders = robinhoodOrderRegistry.retrievePendingRobinhoodOrders(TimeUtil.getStartOfToday());
-            final List<String> orderStrings = new ArrayList<>();
-            pendingOrders.forEach(order -> orderStrings.add(String.format("%s %s @ $%.2f", order.getSide(), order.getSymbol(), Double.valueOf(order.getPrice()))));
+        return String.format("Have %s pending orders: %s", pendingOrders.size(), orderStrings);
+    }
 
-            stringBuilder.append(String.format("Have %s pending orders: %s", pendingOrders.size(), orderStrings));
+    private String constructBalanceResponse() {
+        return String.format("Buying Power: $%.2f Net Worth: %.2f Total Assets: %s across %s unique equities.",
+                             brokerCache.getAccountBalance().getUnallocated_margin_cash(),
+                             brokerCache.getAccountNetWorth(),
+                             brokerCache.getAccountTotalAssets(),
+                             brokerCache.getAssets().size());
+    }
 
-            twitchChat.enqueueMessage(fromChannel, String.format("@%s %s", sender, stringBuilder.toString()));
-        }
+    public void handleReferral(final ChatMessage message) {
+        final Voter voter = message.getVoter();
+        final Wallet wallet = walletRegistry.getWallet(voter.getPlayerId());
+        final StringBuilder stringBuilder = new StringBuilder(String.format("@%s ", voter.getUsername()));
 
-        if ("!balance".equalsIgnoreCase(eventMessage)) {
-            final String response = String.format("Buying Power: $%.2f Net Worth: %.2f Total Assets: %s across %s unique equities.",
-                                                  brokerCache.getAccountBalance().getUnallocated_margin_cash(),
-                                                  brokerCache.getAccountNetWorth(),
-                                                  brokerCache.getAccountTotalAssets(),
-                                                  brokerCache.getAssets().size());
-            twitchChat.enqueueMessage(fromChannel, String.format("@%s %s", sender, response));
+        if (message.getArgs().size() == 1) {
+            String referralCode = message.getArgs().get(0);
+            if (!referralCode.startsWith("http")) {
+                referralCode = "https://" + referralCode;
+            }
 
-        }
+            boolean validURL = false;
+            try {
+                final URI uri = new URI(referralCode);
+                validURL = uri.getHost().toLowerCase().endsWith("robinhood.com");
+            } catch (URISyntaxException e) {
+                log.warn(e.getMessage(), e);
+            }
 
-        if (eventMessage.startsWith("!robinhood")) {
-            final Wallet wallet = walletRegistry.getWallet(voter.getPlayerId());
-            final StringBuilder stringBuilder = new StringBuilder(String.format("@%s ", voter.getUsername()));
-
-            final String[] messageTokens = eventMessage.split(" ");
-            if (messageTokens.length == 2) {
-                String referralCode = messageTokens[1];
-                if (!referralCode.startsWith("http")) {
-                    referralCode = "https://" + referralCode;
-                }
-
-                boolean validURL = false;
-                try {
-                    final URI uri = new URI(referralCode);
-                    validURL = uri.getHost().toLowerCase().endsWith("robinhood.com");
-                } catch (URISyntaxException e) {
-                    log.warn(e.getMessage(), e);
-                }
-
-                if (validURL) {
-                    wallet.setReferralCode(referralCode);
-                    walletRegistry.updateWallets(ImmutableList.of(wallet));
-                    stringBuilder.append("Success! Active players will have their referral code promoted by StockStream");
-                } else {
-                    stringBuilder.append("Invalid referral code, you many only share codes from robinhood.com");
-                }
+            if (validURL) {
+                walletStore.setReferralCode(voter.getPlayerId(), referralCode);
+                stringBuilder.append("Success! Active players will have their referral code promoted by StockStream");
             } else {
-                stringBuilder.append("Add your Robinhood referral code and it will be included on https://stockstream.live " +
-                                     "If you are not signed up yet, visit https://stockstream.live/referral ");
-                if (!StringUtils.isEmpty(wallet.getReferralCode())) {
-                    stringBuilder.append(String.format("You got %s clicks so far.", wallet.getReferralClicks()));
-                } else {
-                    stringBuilder.append("To add your referral code enter the command: !robinhood share.robinhood.com_link");
-                }
+                stringBuilder.append("Invalid referral code, you many only share codes from robinhood.com");
+            }
+        } else {
+            stringBuilder.append("Add your Robinhood referral code and it will be included on https://stockstream.live " +
+                                 "If you are not signed up yet, visit https://stockstream.live/referral ");
+            if (!StringUtils.isEmpty(wallet.getReferralCode())) {
+                stringBuilder.append(String.format("You got %s clicks so far.", wallet.getReferralClicks()));
+            } else {
+                stringBuilder.append("To add your referral code enter the command: !robinhood share.robinhood.com_link");
             }
-
-            twitchChat.enqueueMessage(fromChannel, stringBuilder.toString());
         }
 
-        if (eventMessage.equalsIgnoreCase("!last")) {
-            final String lastOrderStr = this.lastOrderCache.getLastOrder();
-
-            twitchChat.enqueueMessage(fromChannel, String.format("@%s %s", sender, lastOrderStr));
-            return;
-        }
+        outboundChat.send(message.getChannel(), stringBuilder.toString(), OutboundChat.Priority.INFO);
     }
 
+    public void handleLast(final ChatMessage message) {
+        final String lastOrderStr = this.lastOrderCache.getLastOrder();
+
+        mentionCoalescer.reply(message.getChannel(), message.getVoter().getUsername(), lastOrderStr);
+    }
 
-}
\ No newline at end of file
+}
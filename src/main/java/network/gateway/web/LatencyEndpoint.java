@@ -0,0 +1,44 @@
+package network.gateway.web;
+
+import data.LatencyStage;
+import network.gateway.aws.MetricPublisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import spark.Spark;
+import utils.LatencyHistogram;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+
+/**
+ * Plain text view of round stage latencies from the last metric flush, served at /latency.
+ */
+public class LatencyEndpoint {
+
+    @Autowired
+    private MetricPublisher metricPublisher;
+
+    @PostConstruct
+    public void init() {
+        Spark.get("/latency", (request, response) -> {
+            response.type("text/plain");
+            return renderLatencies();
+        });
+    }
+
+    public String renderLatencies() {
+        final Map<String, LatencyHistogram.Snapshot> snapshots = metricPublisher.getLastLatencySnapshots();
+
+        final StringBuilder stringBuilder = new StringBuilder(String.format("%-24s %8s %8s %8s %8s %8s%n", "stage", "count", "p50", "p90", "p99", "max"));
+        for (final LatencyStage stage : LatencyStage.values()) {
+            final LatencyHistogram.Snapshot snapshot = snapshots.get(stage.getMetricName());
+            if (snapshot == null) {
+                stringBuilder.append(String.format("%-24s %8s%n", stage, "-"));
+                continue;
+            }
+            stringBuilder.append(String.format("%-24s %8d %8d %8d %8d %8d%n", stage, snapshot.getCount(),
+                                               snapshot.getP50(), snapshot.getP90(), snapshot.getP99(), snapshot.getMax()));
+        }
+        return stringBuilder.toString();
+    }
+
+}
@@ -131,7 +131,7 @@ public class VirtualFund implements RobinhoodAPI {
 
         double ownedShares = position.getQuantity();
 
-        ownedShares = ownedShares - 1;
+        ownedShares = ownedShares - shares;
 
         if (ownedShares <= 0) {
             positions.remove(symbol);
@@ -139,7 +139,7 @@ public class VirtualFund implements RobinhoodAPI {
 
         position.setQuantity(ownedShares);
 
-        this.unallocated_margin_cash += price;
+        this.unallocated_margin_cash += (price * shares);
 
         this.scheduler.notifyEvent(Event.ORDER_PLACED);
 
@@ -0,0 +1,92 @@
+package utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs jobs with the same key one at a time in submission order, and jobs with different keys in parallel on a
+ * fixed pool. Jobs run in steps. After each step a key with work left goes to the back of the pool's queue, so a
+ * long job takes turns with every other key instead of holding a worker until it is done.
+ */
+@Slf4j
+public class FairKeyedExecutor {
+
+    public interface Job {
+        /**
+         * @return true if the job has steps left.
+         */
+        boolean runStep();
+    }
+
+    private final ExecutorService pool;
+
+    // Guarded by itself. A key is present while it has jobs, and then exactly one turn for it is queued or running.
+    private final Map<String, Queue<Job>> keyToJobs = new HashMap<>();
+
+    public FairKeyedExecutor(final String name, final int threads) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            final Thread thread = new Thread(r, String.format("%s-%s", name, threadCount.getAndIncrement()));
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void submit(final String key, final Job job) {
+        final boolean startTurns;
+        synchronized (keyToJobs) {
+            final Queue<Job> jobs = keyToJobs.computeIfAbsent(key, k -> new ArrayDeque<>());
+            jobs.add(job);
+            startTurns = jobs.size() == 1;
+        }
+
+        if (startTurns) {
+            pool.execute(() -> runTurn(key));
+        }
+    }
+
+    public int getActiveKeys() {
+        synchronized (keyToJobs) {
+            return keyToJobs.size();
+        }
+    }
+
+    private void runTurn(final String key) {
+        final Job job;
+        synchronized (keyToJobs) {
+            job = keyToJobs.get(key).peek();
+        }
+
+        boolean hasSteps;
+        try {
+            hasSteps = job.runStep();
+        } catch (final RuntimeException e) {
+            log.warn("Job for {} failed. {}", key, e.getMessage(), e);
+            hasSteps = false;
+        }
+
+        final boolean hasMoreTurns;
+        synchronized (keyToJobs) {
+            final Queue<Job> jobs = keyToJobs.get(key);
+            if (!hasSteps) {
+                jobs.poll();
+            }
+            hasMoreTurns = !jobs.isEmpty();
+            if (!hasMoreTurns) {
+                keyToJobs.remove(key);
+            }
+        }
+
+        if (hasMoreTurns) {
+            pool.execute(() -> runTurn(key));
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+package utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram that can be recorded into from any thread without locking. Percentiles are
+ * reported as the upper bound of the bucket they fall in, capped at the largest value seen.
+ */
+public class LatencyHistogram {
+
+    private static final long[] BUCKET_UPPER_BOUNDS = {
+            1, 2, 3, 5, 7, 10, 15, 20, 30, 50, 75, 100, 150, 200, 300, 500, 750,
+            1000, 1500, 2000, 3000, 5000, 7500, 10000, 15000, 20000, 30000, 60000, Long.MAX_VALUE
+    };
+
+    @Data
+    @AllArgsConstructor
+    public static class Snapshot {
+        private final long count;
+        private final long sum;
+        private final long min;
+        private final long max;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+
+        public double getAverage() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+    }
+
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKET_UPPER_BOUNDS.length);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(0);
+
+    public void record(final long value) {
+        final long clamped = Math.max(0, value);
+
+        int bucket = Arrays.binarySearch(BUCKET_UPPER_BOUNDS, clamped);
+        if (bucket < 0) {
+            bucket = -bucket - 1;
+        }
+
+        bucketCounts.incrementAndGet(bucket);
+        sum.add(clamped);
+        min.accumulateAndGet(clamped, Math::min);
+        max.accumulateAndGet(clamped, Math::max);
+    }
+
+    /**
+     * Returns what was recorded since the last call and starts a new interval.
+     */
+    public Snapshot snapshotAndReset() {
+        final long[] counts = new long[BUCKET_UPPER_BOUNDS.length];
+        long count = 0;
+        for (int i = 0; i < counts.length; ++i) {
+            counts[i] = bucketCounts.getAndSet(i, 0);
+            count += counts[i];
+        }
+
+        final long intervalSum = sum.sumThenReset();
+        final long intervalMin = min.getAndSet(Long.MAX_VALUE);
+        final long intervalMax = max.getAndSet(0);
+
+        if (count == 0) {
+            return new Snapshot(0, 0, 0, 0, 0, 0, 0);
+        }
+
+        return new Snapshot(count, intervalSum, Math.min(intervalMin, intervalMax), intervalMax,
+                            percentile(counts, count, 0.50, intervalMax),
+                            percentile(counts, count, 0.90, intervalMax),
+                            percentile(counts, count, 0.99, intervalMax));
+    }
+
+    private static long percentile(final long[] counts, final long total, final double percentile, final long max) {
+        final long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; ++i) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(BUCKET_UPPER_BOUNDS[i], max);
+            }
+        }
+        return max;
+    }
+
+}
@@ -0,0 +1,35 @@
+package utils;
+
+import java.util.function.Supplier;
+
+/**
+ * A value computed at most once per time to live, shared by every caller in between. Concurrent callers of a
+ * stale value wait for the one computing it instead of computing it again.
+ */
+public class MemoizedValue<T> {
+
+    private final Supplier<T> supplier;
+    private final long timeToLiveMillis;
+
+    private T value = null;
+    private long computedAt = 0;
+
+    public MemoizedValue(final Supplier<T> supplier, final long timeToLiveMillis) {
+        this.supplier = supplier;
+        this.timeToLiveMillis = timeToLiveMillis;
+    }
+
+    public synchronized T get() {
+        final long now = System.currentTimeMillis();
+        if (value == null || now - computedAt >= timeToLiveMillis) {
+            value = supplier.get();
+            computedAt = now;
+        }
+        return value;
+    }
+
+    public synchronized void invalidate() {
+        value = null;
+    }
+
+}
@@ -0,0 +1,111 @@
+package utils;
+
+import java.util.*;
+
+/**
+ * Immutable trie over a set of upper case symbols. Lookups read straight from the caller's characters, ignore
+ * case and return the canonical String from the set the trie was built with, so a match never allocates and
+ * every caller shares one instance per symbol.
+ */
+public class SymbolTrie {
+
+    public static final SymbolTrie EMPTY = new SymbolTrie(Collections.emptySet());
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static class Node {
+        private final char[] keys;
+        private final Node[] children;
+        private final String symbol;
+
+        private Node(final char[] keys, final Node[] children, final String symbol) {
+            this.keys = keys;
+            this.children = children;
+            this.symbol = symbol;
+        }
+
+        private Node child(final char key) {
+            final int index = Arrays.binarySearch(keys, key);
+            return index < 0 ? null : children[index];
+        }
+    }
+
+    private final Node root;
+    private final int size;
+
+    public SymbolTrie(final Collection<String> symbols) {
+        final List<String> sortedSymbols = new ArrayList<>(new TreeSet<>(symbols));
+        this.root = build(sortedSymbols, 0, sortedSymbols.size(), 0);
+        this.size = sortedSymbols.size();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public String find(final CharSequence text) {
+        return find(text, 0, text.length());
+    }
+
+    /**
+     * @return the canonical symbol spelled by text[start, end) ignoring case, or null if there is none.
+     */
+    public String find(final CharSequence text, final int start, final int end) {
+        if (start >= end) {
+            return null;
+        }
+
+        Node node = root;
+        for (int i = start; i < end && node != null; ++i) {
+            node = node.child(toUpperCase(text.charAt(i)));
+        }
+        return node == null ? null : node.symbol;
+    }
+
+    private static char toUpperCase(final char c) {
+        return c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c;
+    }
+
+    /**
+     * Builds the node for the symbols in sorted[from, to), which all share their first depth characters.
+     */
+    private static Node build(final List<String> sorted, int from, final int to, final int depth) {
+        String symbol = null;
+        if (from < to && sorted.get(from).length() == depth) {
+            symbol = sorted.get(from).intern();
+            ++from;
+        }
+
+        if (from == to) {
+            return new Node(NO_KEYS, NO_CHILDREN, symbol);
+        }
+
+        final List<Character> keys = new ArrayList<>();
+        final List<Node> children = new ArrayList<>();
+
+        int groupStart = from;
+        while (groupStart < to) {
+            final char key = sorted.get(groupStart).charAt(depth);
+            int groupEnd = groupStart + 1;
+            while (groupEnd < to && sorted.get(groupEnd).charAt(depth) == key) {
+                ++groupEnd;
+            }
+
+            keys.add(key);
+            children.add(build(sorted, groupStart, groupEnd, depth + 1));
+            groupStart = groupEnd;
+        }
+
+        final char[] keyArray = new char[keys.size()];
+        for (int i = 0; i < keyArray.length; ++i) {
+            keyArray[i] = keys.get(i);
+        }
+        return new Node(keyArray, children.toArray(new Node[children.size()]), symbol);
+    }
+
+}
@@ -0,0 +1,76 @@
+package cache;
+
+import com.cheddar.robinhood.data.MarketState;
+import logic.MarketStateTestUtils;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import stockstream.cache.BrokerCache;
+import stockstream.computer.TimeComputer;
+import stockstream.logic.Scheduler;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class MarketCalendarTest {
+
+    @Mock
+    private BrokerCache brokerCache;
+
+    @Mock
+    private TimeComputer timeComputer;
+
+    @Mock
+    private Scheduler scheduler;
+
+    @InjectMocks
+    private MarketCalendar marketCalendar;
+
+    private final DateTime today = new DateTime();
+    private final MarketState marketStateToday = MarketStateTestUtils.createMarketState(today, true);
+    private final MarketState marketStateTomorrow = MarketStateTestUtils.createMarketState(today.plusDays(1), true);
+    private final MarketState marketStateDayAfter = MarketStateTestUtils.createMarketState(today.plusDays(2), true);
+
+    @Before
+    public void setupTest() {
+        MockitoAnnotations.initMocks(this);
+
+        when(brokerCache.getMarketState(any())).thenReturn(marketStateToday);
+        when(timeComputer.findNextBusinessDay(any())).thenReturn(marketStateTomorrow, marketStateDayAfter, marketStateDayAfter);
+    }
+
+    @Test
+    public void testGetMarketState_afterRefresh_expectNoBrokerCalls() {
+        marketCalendar.refresh();
+        reset(brokerCache, timeComputer);
+
+        assertSame(marketStateToday, marketCalendar.getMarketState(today));
+        assertSame(marketStateTomorrow, marketCalendar.findNextBusinessDay(today));
+        assertSame(marketStateDayAfter, marketCalendar.findNextBusinessDay(today.plusDays(1)));
+
+        verifyZeroInteractions(brokerCache, timeComputer);
+    }
+
+    @Test
+    public void testGetMarketState_notLoaded_expectLoadedOnce() {
+        marketCalendar.getMarketState(today);
+        marketCalendar.getMarketState(today);
+
+        verify(brokerCache, times(1)).getMarketState(any());
+    }
+
+    @Test
+    public void testRefresh_brokerFails_expectPreviousWindowKept() {
+        marketCalendar.refresh();
+        when(brokerCache.getMarketState(any())).thenThrow(new RuntimeException("markets endpoint down"));
+
+        marketCalendar.refresh();
+
+        assertSame(marketStateToday, marketCalendar.getMarketState(today));
+    }
+
+}
@@ -0,0 +1,99 @@
+package cache;
+
+import com.cheddar.robinhood.data.Quote;
+import com.cheddar.robinhood.exception.RobinhoodException;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import network.gateway.aws.MetricPublisher;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import stockstream.computer.AssetComputer;
+import stockstream.logic.Scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class QuoteCacheTest {
+
+    @Mock
+    private AssetComputer assetComputer;
+
+    @Mock
+    private MetricPublisher metricPublisher;
+
+    @Mock
+    private Scheduler scheduler;
+
+    @InjectMocks
+    private QuoteCache quoteCache;
+
+    @Before
+    public void setupTest() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void testGetQuote_twoSequentialRequests_expectOneFetch() throws Exception {
+        final Quote quote = new Quote();
+        when(assetComputer.loadSymbolToQuote(any())).thenReturn(ImmutableMap.of("AAPL", quote));
+
+        assertSame(quote, quoteCache.getQuote("AAPL"));
+        assertSame(quote, quoteCache.getQuote("AAPL"));
+
+        verify(assetComputer, times(1)).loadSymbolToQuote(any());
+    }
+
+    @Test
+    public void testGetQuote_concurrentRequests_expectSingleBatchedFetch() throws Exception {
+        final Quote aaplQuote = new Quote();
+        final Quote tslaQuote = new Quote();
+        when(assetComputer.loadSymbolToQuote(any())).thenReturn(ImmutableMap.of("AAPL", aaplQuote, "TSLA", tslaQuote));
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(10);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final List<Future<Quote>> aaplFutures = new ArrayList<>();
+        final List<Future<Quote>> tslaFutures = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            aaplFutures.add(executorService.submit(() -> { startLatch.await(); return quoteCache.getQuote("AAPL"); }));
+            tslaFutures.add(executorService.submit(() -> { startLatch.await(); return quoteCache.getQuote("TSLA"); }));
+        }
+        startLatch.countDown();
+
+        for (final Future<Quote> future : aaplFutures) {
+            assertSame(aaplQuote, future.get());
+        }
+        for (final Future<Quote> future : tslaFutures) {
+            assertSame(tslaQuote, future.get());
+        }
+        executorService.shutdown();
+
+        verify(assetComputer, atMost(2)).loadSymbolToQuote(any());
+    }
+
+    @Test(expected = RobinhoodException.class)
+    public void testGetQuote_fetchFails_expectException() throws Exception {
+        when(assetComputer.loadSymbolToQuote(any())).thenThrow(new RobinhoodException("down"));
+
+        quoteCache.getQuote("AAPL");
+    }
+
+    @Test(expected = RobinhoodException.class)
+    public void testGetQuote_noQuoteReturned_expectException() throws Exception {
+        when(assetComputer.loadSymbolToQuote(ImmutableSet.of("AAPL"))).thenReturn(ImmutableMap.of());
+
+        quoteCache.getQuote("AAPL");
+    }
+
+}
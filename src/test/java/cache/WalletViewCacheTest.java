@@ -0,0 +1,78 @@
+package cache;
+
+import com.google.common.collect.ImmutableList;
+import network.gateway.aws.MetricPublisher;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import stockstream.computer.AssetComputer;
+import stockstream.computer.WalletComputer;
+import stockstream.database.Wallet;
+import stockstream.database.WalletRegistry;
+import stockstream.logic.Scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class WalletViewCacheTest {
+
+    @Mock
+    private WalletRegistry walletRegistry;
+
+    @Mock
+    private WalletComputer walletComputer;
+
+    @Mock
+    private AssetComputer assetComputer;
+
+    @Mock
+    private MetricPublisher metricPublisher;
+
+    @Mock
+    private Scheduler scheduler;
+
+    @InjectMocks
+    private WalletViewCache walletViewCache;
+
+    @Before
+    public void setupTest() throws Exception {
+        MockitoAnnotations.initMocks(this);
+
+        when(walletRegistry.getWallet(any())).thenReturn(new Wallet("twitch:michrob", 5000d, 0d, 0d));
+        when(walletComputer.computeBuyingPower(any())).thenReturn(100d);
+        when(walletComputer.computeSpendingBalance(any())).thenReturn(50d);
+        when(assetComputer.getAssetsOwnedByPlayer(any())).thenReturn(ImmutableList.of());
+    }
+
+    @Test
+    public void testGetView_repeatedReads_expectWalletLoadedOnce() throws Exception {
+        assertEquals(100d, walletViewCache.getView("twitch:michrob").getBuyingPower(), 0);
+        assertEquals(50d, walletViewCache.getView("twitch:michrob").getSpendingBalance(), 0);
+
+        verify(walletRegistry, times(1)).getWallet("twitch:michrob");
+    }
+
+    @Test
+    public void testRefresh_afterWalletWrite_expectNewBalanceServedFromCache() throws Exception {
+        walletViewCache.getView("twitch:michrob");
+
+        when(walletComputer.computeSpendingBalance(any())).thenReturn(25d);
+        walletViewCache.refresh("twitch:michrob");
+
+        assertEquals(25d, walletViewCache.getView("twitch:michrob").getSpendingBalance(), 0);
+        verify(walletRegistry, times(2)).getWallet("twitch:michrob");
+    }
+
+    @Test
+    public void testInvalidate_expectReloadOnNextRead() throws Exception {
+        walletViewCache.getView("twitch:michrob");
+        walletViewCache.invalidate("twitch:michrob");
+        walletViewCache.getView("twitch:michrob");
+
+        verify(walletRegistry, times(2)).getWallet("twitch:michrob");
+    }
+
+}
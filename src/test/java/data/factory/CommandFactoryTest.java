@@ -1,11 +1,11 @@
 package data.factory;
 
+import cache.SymbolIndex;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import stockstream.computer.AssetComputer;
 import stockstream.data.TradeAction;
 import stockstream.data.TradeCommand;
 import stockstream.data.WalletAction;
@@ -15,12 +15,13 @@ import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Mockito.when;
 
 public class CommandFactoryTest {
 
     @Mock
-    private AssetComputer assetComputer;
+    private SymbolIndex symbolIndex;
 
     @InjectMocks
     private CommandFactory commandFactory;
@@ -30,6 +31,16 @@ public class CommandFactoryTest {
         MockitoAnnotations.initMocks(this);
     }
 
+    private void givenSymbolsAreValid(final boolean valid) {
+        when(symbolIndex.find(any(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            if (!valid) {
+                return null;
+            }
+            final Object[] arguments = invocation.getArguments();
+            return arguments[0].toString().substring((int) arguments[1], (int) arguments[2]).toUpperCase();
+        });
+    }
+
     @Test
     public void testConstructTradeCommand_invalidCommand_expectEmpty() {
         assertEquals(Optional.empty(), commandFactory.constructTradeCommand("buy aapl"));
@@ -48,21 +59,21 @@ public class CommandFactoryTest {
 
     @Test
     public void testConstructTradeCommand_invalidSymbol_expectEmpty() {
-        when(assetComputer.isSymbol(any())).thenReturn(false);
+        givenSymbolsAreValid(false);
 
         assertEquals(Optional.empty(), commandFactory.constructTradeCommand("!buy oopl"));
     }
 
     @Test
     public void testConstructTradeCommand_validSymbolInvalidAction_expectEmpty() {
-        when(assetComputer.isSymbol(any())).thenReturn(true);
+        givenSymbolsAreValid(true);
 
         assertEquals(Optional.empty(), commandFactory.constructTradeCommand("!foo aapl"));
     }
 
     @Test
     public void testConstructTradeCommand_validSymbolValidBuyAction_expectValidResponse() {
-        when(assetComputer.isSymbol(any())).thenReturn(true);
+        givenSymbolsAreValid(true);
 
         Optional<TradeCommand> tradeCommandOptional = commandFactory.constructTradeCommand("!buy aapl");
 
@@ -72,7 +83,7 @@ public class CommandFactoryTest {
 
     @Test
     public void testConstructTradeCommand_validSymbolValidSellAction_expectValidResponse() {
-        when(assetComputer.isSymbol(any())).thenReturn(true);
+        givenSymbolsAreValid(true);
 
         Optional<TradeCommand> tradeCommandOptional = commandFactory.constructTradeCommand("!sell aapl");
 
@@ -101,11 +112,31 @@ public class CommandFactoryTest {
         final WalletCommand buyCommand = new WalletCommand(WalletAction.BUY, 1, "AMZN", 4.21);
         final WalletCommand sellCommand = new WalletCommand(WalletAction.SELL, 1, "GOOG", 4.22);
 
-        when(assetComputer.isSymbol(any())).thenReturn(true);
+        givenSymbolsAreValid(true);
 
         assertEquals(Optional.of(sendCommand).get(), commandFactory.constructWalletCommand("#send player1 4.20").get());
         assertEquals(Optional.of(buyCommand).get(), commandFactory.constructWalletCommand("#buy 1 AMZN 4.21").get());
         assertEquals(Optional.of(sellCommand).get(), commandFactory.constructWalletCommand("#sell 2 GOOG 4.22").get());
     }
 
+    @Test
+    public void testConstructWalletCommand_malformedNumbers_expectEmpty() {
+        givenSymbolsAreValid(true);
+
+        assertEquals(Optional.empty(), commandFactory.constructWalletCommand("#buy one AMZN 4.21"));
+        assertEquals(Optional.empty(), commandFactory.constructWalletCommand("#buy 1 AMZN 4.2.1"));
+        assertEquals(Optional.empty(), commandFactory.constructWalletCommand("#buy 99999999999 AMZN 4.21"));
+        assertEquals(Optional.empty(), commandFactory.constructWalletCommand("#send player1 lots"));
+    }
+
+    @Test
+    public void testConstructWalletCommand_extraWhitespace_expectValidResponse() {
+        final WalletCommand buyCommand = new WalletCommand(WalletAction.BUY, 3, "AMZN", 4.21);
+
+        givenSymbolsAreValid(true);
+
+        assertEquals(buyCommand, commandFactory.constructWalletCommand("#BUY  3\tamzn 4.21 ").get());
+        assertEquals(4.21, commandFactory.constructWalletCommand("#buy 3 amzn 4.21").get().getLimit(), 0);
+    }
+
 }
@@ -1,34 +1,42 @@
 package logic.game;
 
+import cache.MarketCalendar;
 import com.cheddar.robinhood.data.MarketState;
 import logic.MarketStateTestUtils;
+import logic.voting.VoteEngine;
 import org.joda.time.DateTime;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import stockstream.cache.BrokerCache;
-import stockstream.computer.TimeComputer;
+import org.mockito.Spy;
+import stockstream.database.GameStateRegistry;
 import stockstream.logic.Scheduler;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 public class GameClockTest {
     @Mock
     private GameEngine gameEngine;
 
     @Mock
-    private BrokerCache brokerCache;
+    private MarketCalendar marketCalendar;
 
     @Mock
-    private TimeComputer timeComputer;
+    private Scheduler scheduler;
 
     @Mock
-    private Scheduler scheduler;
+    private GameStateRegistry gameStateRegistry;
+
+    @Mock
+    private VoteEngine voteEngine;
+
+    @Spy
+    private ManualGameTimeSource gameTimeSource = new ManualGameTimeSource(new DateTime().getMillis());
 
     @InjectMocks
     private GameClock gameClock;
@@ -42,7 +50,7 @@ public class GameClockTest {
     public void testSetNextEvent_marketOpen_expectNextEventAsGameTick() {
         final DateTime now = new DateTime();
 
-        when(brokerCache.getMarketState(now)).thenReturn(MarketStateTestUtils.createMarketState(now, true));
+        when(marketCalendar.getMarketState(now)).thenReturn(MarketStateTestUtils.createMarketState(now, true));
 
         final GameEvent nextEvent = gameClock.findNextEvent(now);
 
@@ -55,10 +63,10 @@ public class GameClockTest {
         final DateTime tomorrow = today.plusDays(1);
 
         final MarketState marketStateToday = MarketStateTestUtils.createMarketState(today, false);
-        when(brokerCache.getMarketState(any())).thenReturn(marketStateToday);
+        when(marketCalendar.getMarketState(any())).thenReturn(marketStateToday);
 
         final MarketState marketStateTomorrow = MarketStateTestUtils.createMarketState(tomorrow, true);
-        when(timeComputer.findNextBusinessDay(any())).thenReturn(marketStateTomorrow);
+        when(marketCalendar.findNextBusinessDay(any())).thenReturn(marketStateTomorrow);
 
         final GameEvent nextEvent = gameClock.findNextEvent(today);
 
@@ -67,4 +75,56 @@ public class GameClockTest {
         assertEquals(marketStateTomorrow.getExtendedOpenTime().get().getMillis(), nextEvent.getNextEvent());
     }
 
+    @Test
+    public void testOnGameEvent_marketOpen_expectRoundClosesExactlyAtNextEvent() {
+        when(marketCalendar.getMarketState(any())).thenReturn(MarketStateTestUtils.createMarketState(new DateTime(), true));
+
+        gameClock.init();
+        gameTimeSource.advance(1000);
+
+        final GameEvent firstRound = gameClock.getNextGameEvent();
+        assertEquals(GameEvent.Type.GAME_TICK, firstRound.getEventType());
+        assertEquals(firstRound.getNextEvent(), gameTimeSource.getNextFireAt());
+        verify(voteEngine, never()).executeElections();
+
+        gameTimeSource.advance(firstRound.getNextEvent() - gameTimeSource.currentTimeMillis() - 1);
+        verify(voteEngine, never()).executeElections();
+
+        gameTimeSource.advance(1);
+        verify(voteEngine, times(1)).executeElections();
+        assertEquals(firstRound.getNextEvent() + gameClock.getRoundLengthSeconds() * 1000, gameClock.getNextGameEvent().getNextEvent());
+        assertEquals(1, gameTimeSource.getPendingTimers());
+    }
+
+    @Test
+    public void testSlowDown_roundPending_expectTimerMovedWithRound() {
+        when(marketCalendar.getMarketState(any())).thenReturn(MarketStateTestUtils.createMarketState(new DateTime(), true));
+
+        gameClock.init();
+        gameTimeSource.advance(1000);
+        final long roundStart = gameTimeSource.currentTimeMillis();
+
+        gameClock.slowDown();
+
+        final long expectedEnd = roundStart + gameClock.getRoundLengthSeconds() * 1000;
+        assertEquals(expectedEnd, gameClock.getNextGameEvent().getNextEvent());
+        assertEquals(expectedEnd, gameTimeSource.getNextFireAt());
+        assertEquals(1, gameTimeSource.getPendingTimers());
+    }
+
+    @Test
+    public void testOnGameEvent_marketClosed_expectNoWakeupsUntilOpen() {
+        final DateTime today = new DateTime();
+        final MarketState marketStateTomorrow = MarketStateTestUtils.createMarketState(today.plusDays(1), true);
+
+        when(marketCalendar.getMarketState(any())).thenReturn(MarketStateTestUtils.createMarketState(today, false));
+        when(marketCalendar.findNextBusinessDay(any())).thenReturn(marketStateTomorrow);
+
+        gameClock.init();
+        gameTimeSource.advance(1000);
+
+        assertEquals(1, gameTimeSource.getPendingTimers());
+        assertEquals(marketStateTomorrow.getExtendedOpenTime().get().getMillis(), gameTimeSource.getNextFireAt());
+    }
+
 }
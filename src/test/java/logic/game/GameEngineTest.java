@@ -1,6 +1,7 @@
 package logic.game;
 
 
+import cache.QuoteCache;
 import com.cheddar.robinhood.RobinhoodAPI;
 import com.cheddar.robinhood.data.MarginBalances;
 import com.cheddar.robinhood.data.Order;
@@ -9,7 +10,9 @@ import com.cheddar.robinhood.exception.RobinhoodException;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import data.LatencyStage;
 import data.TestDataUtils;
+import network.gateway.aws.MetricPublisher;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
@@ -26,6 +29,7 @@ import stockstream.database.InstrumentStub;
 import stockstream.logic.Scheduler;
 import stockstream.logic.elections.VoteComparator;
 
+import java.util.Optional;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
@@ -61,12 +65,23 @@ public class GameEngineTest {
     @Mock
     private InstrumentCache instrumentCache;
 
+    @Mock
+    private QuoteCache quoteCache;
+
+    @Mock
+    private QuotePrefetcher quotePrefetcher;
+
+    @Mock
+    private MetricPublisher metricPublisher;
+
     @InjectMocks
     private GameEngine gameEngine;
 
     @Before
     public void setupTest() {
         MockitoAnnotations.initMocks(this);
+        when(quoteCache.getFreshQuote(any(), anyLong())).thenReturn(Optional.empty());
+        when(quotePrefetcher.getWarmInstrument(any())).thenReturn(Optional.empty());
     }
 
     @Test
@@ -150,6 +165,79 @@ public class GameEngineTest {
         verify(brokerCache, times(1)).getAccountNetWorth();
     }
 
+    @Test
+    public void testTick_prefetchedQuote_expectNoBrokerQuoteFetch() throws RobinhoodException, ExecutionException {
+        final TradeCommand bestCommand = new TradeCommand(TradeAction.BUY, "AAPL");
+
+        final Quote quote = new Quote();
+        quote.setInstrument("instrument");
+        quote.setLast_trade_price(1);
+
+        final InstrumentStub instrument = new InstrumentStub();
+        instrument.setMin_tick_size(0);
+
+        when(quoteCache.getFreshQuote(eq("AAPL"), anyLong())).thenReturn(Optional.of(quote));
+        when(timeComputer.isMarketOpenNow()).thenReturn(true);
+        when(brokerCache.getAccountNetWorth()).thenReturn(50000d);
+        when(orderComputer.calculateBuyOrderCeiling(any())).thenReturn(1d);
+        when(orderComputer.preProcessTradeCommand(any(), any())).thenReturn(OrderStatus.OK);
+        when(orderComputer.constructLimitOrderString(anyDouble(), anyFloat())).thenReturn("0");
+        when(instrumentCache.getUrlToInstrument()).thenReturn(ImmutableMap.of("instrument", instrument));
+        when(walletComputer.computeBuyingPower(anySet())).thenReturn(151d);
+        doNothing().when(scheduler).notifyEvent(anyObject());
+
+        final Order okOrder = new Order("id", "filled", "0", "1", "1", "", "buy", "", "1", ImmutableList.of());
+        when(broker.buyShares("AAPL", 1, 1.2)).thenReturn(okOrder);
+
+        final SortedMap<TradeCommand, Set<Voter>> rankedTradeCommands = new TreeMap<>(new VoteComparator<>(ImmutableMap.of()));
+        rankedTradeCommands.put(bestCommand, ImmutableSet.of(TestDataUtils.createVoter("twitch:player1")));
+
+        final OrderResult orderResult = gameEngine.executeBestCommand(rankedTradeCommands);
+
+        assertTrue(orderResult.getOrderStatus().equals(OrderStatus.OK));
+
+        verify(brokerCache, never()).getQuoteForSymbol(any());
+        verify(metricPublisher, times(1)).incrementCounter("PrefetchedQuoteHit", 1);
+        verify(metricPublisher, never()).incrementCounter("PrefetchedQuoteMiss", 1);
+        verify(metricPublisher, never()).recordLatency(eq(LatencyStage.QUOTE_FETCH), anyLong());
+    }
+
+    @Test
+    public void testTick_warmInstrumentColdQuote_expectQuoteMissAndNoInstrumentLookup() throws RobinhoodException, ExecutionException {
+        final TradeCommand bestCommand = new TradeCommand(TradeAction.BUY, "AAPL");
+
+        final Quote quote = new Quote();
+        quote.setInstrument("instrument");
+        quote.setLast_trade_price(1);
+
+        final InstrumentStub instrument = new InstrumentStub();
+        instrument.setMin_tick_size(0);
+
+        when(quotePrefetcher.getWarmInstrument("AAPL")).thenReturn(Optional.of(instrument));
+        when(timeComputer.isMarketOpenNow()).thenReturn(true);
+        when(brokerCache.getAccountNetWorth()).thenReturn(50000d);
+        when(brokerCache.getQuoteForSymbol(any())).thenReturn(quote);
+        when(orderComputer.calculateBuyOrderCeiling(any())).thenReturn(1d);
+        when(orderComputer.preProcessTradeCommand(any(), any())).thenReturn(OrderStatus.OK);
+        when(orderComputer.constructLimitOrderString(anyDouble(), anyFloat())).thenReturn("0");
+        when(walletComputer.computeBuyingPower(anySet())).thenReturn(151d);
+        doNothing().when(scheduler).notifyEvent(anyObject());
+
+        final Order okOrder = new Order("id", "filled", "0", "1", "1", "", "buy", "", "1", ImmutableList.of());
+        when(broker.buyShares("AAPL", 1, 1.2)).thenReturn(okOrder);
+
+        final SortedMap<TradeCommand, Set<Voter>> rankedTradeCommands = new TreeMap<>(new VoteComparator<>(ImmutableMap.of()));
+        rankedTradeCommands.put(bestCommand, ImmutableSet.of(TestDataUtils.createVoter("twitch:player1")));
+
+        final OrderResult orderResult = gameEngine.executeBestCommand(rankedTradeCommands);
+
+        assertTrue(orderResult.getOrderStatus().equals(OrderStatus.OK));
+
+        verify(metricPublisher, times(1)).incrementCounter("PrefetchedQuoteMiss", 1);
+        verify(metricPublisher, times(1)).incrementCounter("PrefetchedInstrumentHit", 1);
+        verify(instrumentCache, never()).getUrlToInstrument();
+    }
+
     @Test
     public void testTick_oneVote500DollarStock_expectNotEnoughVotes() throws RobinhoodException, ExecutionException {
         final TradeCommand bestCommand = new TradeCommand(TradeAction.BUY, "AAPL");
@@ -0,0 +1,111 @@
+package logic.game;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GameTimeSource for tests. Time only moves on advance(), which runs the timers that come due in order.
+ */
+public class ManualGameTimeSource implements GameTimeSource {
+
+    private long now;
+    private final List<Timer> timers = new ArrayList<>();
+
+    public ManualGameTimeSource(final long now) {
+        this.now = now;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return now;
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(final Runnable task, final long delayMillis) {
+        final Timer timer = new Timer(task, now + Math.max(0, delayMillis));
+        timers.add(timer);
+        return timer;
+    }
+
+    public void advance(final long millis) {
+        final long target = now + millis;
+        while (true) {
+            final Timer due = timers.stream()
+                                    .filter(timer -> timer.fireAt <= target)
+                                    .min(Comparator.comparingLong(timer -> timer.fireAt))
+                                    .orElse(null);
+            if (due == null) {
+                break;
+            }
+            timers.remove(due);
+            now = Math.max(now, due.fireAt);
+            due.done = true;
+            due.task.run();
+        }
+        now = target;
+    }
+
+    public int getPendingTimers() {
+        return timers.size();
+    }
+
+    public long getNextFireAt() {
+        return timers.stream().mapToLong(timer -> timer.fireAt).min().orElse(Long.MAX_VALUE);
+    }
+
+    private class Timer implements ScheduledFuture<Object> {
+        private final Runnable task;
+        private final long fireAt;
+        private boolean done = false;
+        private boolean cancelled = false;
+
+        private Timer(final Runnable task, final long fireAt) {
+            this.task = task;
+            this.fireAt = fireAt;
+        }
+
+        @Override
+        public long getDelay(final TimeUnit unit) {
+            return unit.convert(fireAt - now, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(final Delayed other) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            if (done) {
+                return false;
+            }
+            cancelled = timers.remove(this);
+            return cancelled;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done || cancelled;
+        }
+
+        @Override
+        public Object get() {
+            return null;
+        }
+
+        @Override
+        public Object get(final long timeout, final TimeUnit unit) {
+            return null;
+        }
+    }
+
+}
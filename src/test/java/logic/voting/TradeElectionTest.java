@@ -2,10 +2,13 @@ package logic.voting;
 
 import com.cheddar.robinhood.exception.RobinhoodException;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import data.RoundResult;
+import data.VoterWallets;
 import data.factory.CommandFactory;
 import data.factory.ResponseFactory;
 import logic.game.GameEngine;
+import network.gateway.aws.MetricPublisher;
 import network.gateway.aws.RoundPublisher;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -26,11 +29,14 @@ import stockstream.spring.DatabaseBeans;
 
 import java.util.Date;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anySet;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
 public class TradeElectionTest {
@@ -59,6 +65,9 @@ public class TradeElectionTest {
     @Mock
     private RoundPublisher roundPublisher;
 
+    @Mock
+    private MetricPublisher metricPublisher;
+
     @InjectMocks
     private TradingElection tradingElection;
 
@@ -123,13 +132,13 @@ public class TradeElectionTest {
         when(walletRegistry.getWallets(any())).thenReturn(ImmutableList.of());
         when(orderComputer.preProcessTradeCommand(any(), any())).thenReturn(OrderStatus.OK);
         when(commandFactory.constructTradeCommand(any())).thenReturn(Optional.of(new TradeCommand(TradeAction.BUY, "ABC")));
-        when(gameEngine.executeBestCommand(any())).thenReturn(new OrderResult("BUY", "ABC", OrderStatus.OK, null));
+        when(gameEngine.executeBestCommand(any(), any())).thenReturn(new OrderResult("BUY", "ABC", OrderStatus.OK, null));
 
         tradingElection.receiveVote("!buy abc", new Voter("p1", "sim", "#sim", false));
         tradingElection.receiveVote("!buy abc", new Voter("p2", "sim", "#sim", false));
         tradingElection.receiveVote("!buy abc", new Voter("p3", "sim", "#sim", false));
 
-        tradingElection.onElection(new TradeCommand(TradeAction.BUY, "ABC"));
+        tradingElection.closeRound().join();
 
         verify(pubSub, times(1)).publishClassType(any(), any());
         verify(roundPublisher, times(1)).publishRoundResult(captor.capture());
@@ -147,13 +156,13 @@ public class TradeElectionTest {
         when(walletRegistry.getWallets(any())).thenReturn(ImmutableList.of(new Wallet("sim:p1", 100, 100, 999999)));
         when(orderComputer.preProcessTradeCommand(any(), any())).thenReturn(OrderStatus.OK);
         when(commandFactory.constructTradeCommand(any())).thenReturn(Optional.of(new TradeCommand(TradeAction.BUY, "ABC")));
-        when(gameEngine.executeBestCommand(any())).thenReturn(new OrderResult("BUY", "ABC", OrderStatus.OK, null));
+        when(gameEngine.executeBestCommand(any(), any())).thenReturn(new OrderResult("BUY", "ABC", OrderStatus.OK, null));
 
         tradingElection.receiveVote("!buy abc", new Voter("p1", "sim", "#sim", false));
         tradingElection.receiveVote("!buy abc", new Voter("p2", "sim", "#sim", false));
         tradingElection.receiveVote("!buy abc", new Voter("p3", "sim", "#sim", false));
 
-        tradingElection.onElection(new TradeCommand(TradeAction.BUY, "ABC"));
+        tradingElection.closeRound().join();
 
         verify(pubSub, times(1)).publishClassType(any(), any());
         verify(roundPublisher, times(1)).publishRoundResult(captor.capture());
@@ -162,4 +171,97 @@ public class TradeElectionTest {
 
         assertEquals(2, roundResult.getPlayerToCommand().size());
     }
+
+    @Test
+    public void testOnElection_executeOrderThrows_expectFailedRoundResultPublished() throws ExecutionException, RobinhoodException {
+
+        final ArgumentCaptor<RoundResult> captor = ArgumentCaptor.forClass(RoundResult.class);
+
+        when(walletRegistry.getWallets(any())).thenReturn(ImmutableList.of());
+        when(orderComputer.preProcessTradeCommand(any(), any())).thenReturn(OrderStatus.OK);
+        when(commandFactory.constructTradeCommand(any())).thenReturn(Optional.of(new TradeCommand(TradeAction.BUY, "ABC")));
+        when(gameEngine.executeBestCommand(any(), any())).thenThrow(new IllegalStateException("broker down"));
+
+        tradingElection.receiveVote("!buy abc", new Voter("p1", "sim", "#sim", false));
+
+        tradingElection.closeRound().join();
+
+        verify(pubSub, times(1)).publishClassType(any(), any());
+        verify(roundPublisher, times(1)).publishRoundResult(captor.capture());
+
+        assertEquals(OrderStatus.BROKER_EXCEPTION, captor.getValue().getOrderResult().get().getOrderStatus());
+        assertEquals(1, captor.getValue().getPlayerToCommand().size());
+    }
+
+    @Test
+    public void testOnElection_votersWithoutWallets_expectSetLevelBuyingPower() throws ExecutionException, RobinhoodException {
+
+        final ArgumentCaptor<CompletableFuture> captor = ArgumentCaptor.forClass(CompletableFuture.class);
+
+        when(walletRegistry.getWallets(any())).thenReturn(ImmutableList.of());
+        when(walletComputer.computeBuyingPower(anySet())).thenReturn(300d);
+        when(orderComputer.preProcessTradeCommand(any(), any())).thenReturn(OrderStatus.OK);
+        when(commandFactory.constructTradeCommand(any())).thenReturn(Optional.of(new TradeCommand(TradeAction.BUY, "ABC")));
+        when(gameEngine.executeBestCommand(any(), any())).thenReturn(new OrderResult("BUY", "ABC", OrderStatus.OK, null));
+
+        tradingElection.receiveVote("!buy abc", new Voter("p1", "sim", "#sim", false));
+        tradingElection.receiveVote("!buy abc", new Voter("p2", "sim", "#sim", false));
+
+        tradingElection.closeRound().join();
+
+        verify(gameEngine, times(1)).executeBestCommand(any(), captor.capture());
+
+        final VoterWallets voterWallets = (VoterWallets) captor.getValue().join();
+
+        assertEquals(300d, voterWallets.getTotalBuyingPower(), 0.001);
+    }
+
+    @Test
+    public void testReceiveVote_sameRejectedCommandFromManyVoters_expectResponseBuiltOncePerRound() throws ExecutionException, RobinhoodException {
+        when(orderComputer.preProcessTradeCommand(any(), any())).thenReturn(OrderStatus.NO_SHARES);
+        when(responseFactory.constructPreResponse(any(), any(), any())).thenReturn("There are no shares of XYZ to SELL.");
+        when(commandFactory.constructTradeCommand(any())).thenReturn(Optional.of(new TradeCommand(TradeAction.SELL, "XYZ")));
+        when(gameEngine.executeBestCommand(any(), any())).thenReturn(new OrderResult("SELL", "XYZ", OrderStatus.NO_SHARES, null));
+
+        for (int i = 0; i < 3; ++i) {
+            final Optional<String> response = tradingElection.receiveVote("!sell xyz", new Voter("p" + i, "sim", "#sim", false));
+            assertEquals("There are no shares of XYZ to SELL.", response.get());
+        }
+
+        verify(orderComputer, times(3)).preProcessTradeCommand(any(), any());
+        verify(responseFactory, times(1)).constructPreResponse(any(), any(), any());
+
+        tradingElection.closeRound().join();
+        tradingElection.setExpirationDate(new Date().getTime() + 60000);
+        tradingElection.receiveVote("!sell xyz", new Voter("p0", "sim", "#sim", false));
+
+        verify(responseFactory, times(2)).constructPreResponse(any(), any(), any());
+    }
+
+    @Test
+    public void testReceiveVote_sameCommandRejectedForOneVoter_expectOtherVoterCounted() throws ExecutionException, RobinhoodException {
+        final Voter rejectedVoter = new Voter("p1", "sim", "#sim", false);
+        final Voter acceptedVoter = new Voter("p2", "sim", "#sim", false);
+
+        when(orderComputer.preProcessTradeCommand(any(), eq(ImmutableSet.of(rejectedVoter)))).thenReturn(OrderStatus.NOT_ENOUGH_BUYING_POWER);
+        when(orderComputer.preProcessTradeCommand(any(), eq(ImmutableSet.of(acceptedVoter)))).thenReturn(OrderStatus.OK);
+        when(responseFactory.constructPreResponse(any(), any(), any())).thenReturn("Not enough buying power to BUY ABC.");
+        when(commandFactory.constructTradeCommand(any())).thenReturn(Optional.of(new TradeCommand(TradeAction.BUY, "ABC")));
+
+        assertEquals("Not enough buying power to BUY ABC.", tradingElection.receiveVote("!buy abc", rejectedVoter).get());
+        assertFalse(tradingElection.receiveVote("!buy abc", acceptedVoter).isPresent());
+
+        assertEquals(1, tradingElection.getStandings(1).get(0).getVoters());
+    }
+
+    @Test
+    public void testReceiveVote_unparseableMessage_expectNotCounted() throws ExecutionException, RobinhoodException {
+        when(commandFactory.constructTradeCommand(any())).thenReturn(Optional.empty());
+
+        assertFalse(tradingElection.receiveVote("!buy", new Voter("p1", "sim", "#sim", false)).isPresent());
+
+        verify(orderComputer, never()).preProcessTradeCommand(any(), any());
+        assertEquals(0, tradingElection.getStandings(1).size());
+    }
+
 }
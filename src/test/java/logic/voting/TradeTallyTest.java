@@ -0,0 +1,106 @@
+package logic.voting;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import data.Standings;
+import data.TestDataUtils;
+import org.junit.Test;
+import stockstream.data.TradeAction;
+import stockstream.data.TradeCommand;
+import stockstream.data.Voter;
+import stockstream.logic.elections.VoteComparator;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class TradeTallyTest {
+
+    private static final TradeCommand BUY_AAPL = new TradeCommand(TradeAction.BUY, "AAPL");
+    private static final TradeCommand SELL_FB = new TradeCommand(TradeAction.SELL, "FB");
+
+    @Test
+    public void testGetLeader_noVotes_expectEmpty() {
+        assertFalse(new TradeTally().getLeader().isPresent());
+    }
+
+    @Test
+    public void testRecordVote_tiedCandidates_expectVoteComparatorOrder() {
+        final TradeTally tradeTally = new TradeTally();
+        final Voter firstVoter = TestDataUtils.createVoter("p1");
+        final Voter secondVoter = TestDataUtils.createVoter("p2");
+
+        tradeTally.recordVote(firstVoter, BUY_AAPL);
+        tradeTally.recordVote(secondVoter, SELL_FB);
+
+        final Map<TradeCommand, Set<Voter>> candidateToVoters = ImmutableMap.of(BUY_AAPL, ImmutableSet.of(firstVoter),
+                                                                                SELL_FB, ImmutableSet.of(secondVoter));
+        final SortedMap<TradeCommand, Set<Voter>> expected = new TreeMap<>(new VoteComparator<>(candidateToVoters));
+        expected.putAll(candidateToVoters);
+
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(tradeTally.toRankedMap().keySet()));
+        assertEquals(expected.firstKey(), tradeTally.getLeader().get());
+    }
+
+    @Test
+    public void testRecordVote_voterSwitchesCandidate_expectLeaderChanges() {
+        final TradeTally tradeTally = new TradeTally();
+        final Voter switcher = TestDataUtils.createVoter("p2");
+
+        tradeTally.recordVote(TestDataUtils.createVoter("p1"), BUY_AAPL);
+        tradeTally.recordVote(switcher, BUY_AAPL);
+        tradeTally.recordVote(TestDataUtils.createVoter("p3"), SELL_FB);
+        tradeTally.recordVote(switcher, SELL_FB);
+
+        assertEquals(SELL_FB, tradeTally.getLeader().get());
+        assertEquals(SELL_FB, tradeTally.getVoterToCandidate().get(switcher));
+        assertEquals(3, tradeTally.getVoterToCandidate().size());
+    }
+
+    @Test
+    public void testRecordVote_repeatedVote_expectVersionBumpedVotersUnchanged() {
+        final TradeTally tradeTally = new TradeTally();
+        final Voter voter = TestDataUtils.createVoter("p1");
+
+        tradeTally.recordVote(voter, BUY_AAPL);
+        final long version = tradeTally.getVersion();
+        tradeTally.recordVote(voter, BUY_AAPL);
+
+        assertTrue(tradeTally.getVersion() > version);
+        assertEquals(1, tradeTally.toRankedMap().get(BUY_AAPL).size());
+    }
+
+    @Test
+    public void testToRankedMap_lastVoterLeavesCandidate_expectCandidateRemovedAndRanked() {
+        final TradeTally tradeTally = new TradeTally();
+        final Voter voter = TestDataUtils.createVoter("p1");
+
+        tradeTally.recordVote(voter, SELL_FB);
+        tradeTally.recordVote(voter, BUY_AAPL);
+        tradeTally.recordVote(TestDataUtils.createVoter("p2"), BUY_AAPL);
+
+        final SortedMap<TradeCommand, Set<Voter>> rankedCandidates = tradeTally.toRankedMap();
+        final Iterator<TradeCommand> candidates = rankedCandidates.keySet().iterator();
+
+        assertEquals(1, rankedCandidates.size());
+        assertEquals(BUY_AAPL, candidates.next());
+        assertEquals(2, rankedCandidates.get(BUY_AAPL).size());
+    }
+
+    @Test
+    public void testGetTopCandidates_laterVotes_expectEarlierSnapshotUnchanged() {
+        final TradeTally tradeTally = new TradeTally();
+
+        tradeTally.recordVote(TestDataUtils.createVoter("p1"), BUY_AAPL);
+        final List<Standings.Entry> snapshot = tradeTally.getTopCandidates(5);
+
+        tradeTally.recordVote(TestDataUtils.createVoter("p2"), SELL_FB);
+        tradeTally.recordVote(TestDataUtils.createVoter("p3"), SELL_FB);
+
+        assertEquals(1, snapshot.size());
+        assertEquals(BUY_AAPL, snapshot.get(0).getTradeCommand());
+        assertEquals(SELL_FB, tradeTally.getTopCandidates(5).get(0).getTradeCommand());
+        assertEquals(1, tradeTally.getTopCandidates(1).size());
+    }
+
+}
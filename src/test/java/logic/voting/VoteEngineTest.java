@@ -1,6 +1,10 @@
 package logic.voting;
 
 import data.Vote;
+import logic.game.GameClock;
+import logic.game.GameEvent;
+import network.gateway.aws.MetricPublisher;
+import network.gateway.twitch.MentionCoalescer;
 import org.apache.commons.lang.time.DateUtils;
 import org.junit.Before;
 import org.junit.Test;
@@ -11,7 +15,7 @@ import stockstream.data.Voter;
 import stockstream.database.ElectionRegistry;
 import stockstream.logic.Scheduler;
 import stockstream.twitch.TwitchAPI;
-import stockstream.twitch.TwitchChat;
+import utils.LatencyHistogram;
 
 import java.util.Date;
 import java.util.Optional;
@@ -26,7 +30,7 @@ public class VoteEngineTest {
     private TwitchAPI twitchAPI;
 
     @Mock
-    private TwitchChat twitchChat;
+    private MentionCoalescer mentionCoalescer;
 
     @Mock
     private Scheduler scheduler;
@@ -43,12 +47,19 @@ public class VoteEngineTest {
     @Mock
     private ElectionRegistry electionRegistry;
 
+    @Mock
+    private GameClock gameClock;
+
+    @Mock
+    private MetricPublisher metricPublisher;
+
     @InjectMocks
     private VoteEngine voteEngine;
 
     @Before
     public void setTest() {
         MockitoAnnotations.initMocks(this);
+        when(metricPublisher.getLatencyHistogram(any())).thenReturn(new LatencyHistogram());
         voteEngine.init();
     }
 
@@ -63,7 +74,7 @@ public class VoteEngineTest {
         when(speedElection.receiveVote(any(), any())).thenReturn(Optional.empty());
         when(walletElection.receiveVote(any(), any())).thenReturn(Optional.empty());
 
-        voteEngine.enqueueVote(new Vote(new Voter("mike", "twitch", "#stockstream", true), "!test", "#stockstream", new Date().getTime()));
+        voteEngine.getVoteQueue().add(new Vote(new Voter("mike", "twitch", "#stockstream", true), "!test", "#stockstream", new Date().getTime()));
 
         voteEngine.multiThreadedPoll();
 
@@ -81,11 +92,41 @@ public class VoteEngineTest {
         when(speedElection.receiveVote(any(), any())).thenReturn(Optional.empty());
         when(walletElection.receiveVote(any(), any())).thenReturn(Optional.empty());
 
-        voteEngine.enqueueVote(new Vote(new Voter("mike", "twitch", "#stockstream", true), "!test", "#stockstream", new Date().getTime()));
+        voteEngine.getVoteQueue().add(new Vote(new Voter("mike", "twitch", "#stockstream", true), "!test", "#stockstream", new Date().getTime()));
 
         voteEngine.multiThreadedPoll();
 
         assertEquals(1, voteEngine.getVoteQueue().size());
     }
 
+    @Test
+    public void multithreadedPoll_voteAfterOneElectionExpired_expectVoteDeferredUntilNextRound() {
+        final GameEvent currentEvent = new GameEvent(DateUtils.addHours(new Date(), -1).getTime(), GameEvent.Type.GAME_TICK);
+        final GameEvent nextEvent = new GameEvent(DateUtils.addHours(new Date(), 1).getTime(), GameEvent.Type.GAME_TICK);
+
+        when(gameClock.getNextGameEvent()).thenReturn(currentEvent);
+
+        when(tradingElection.getExpirationDate()).thenReturn(DateUtils.addHours(new Date(), -1).getTime());
+        when(speedElection.getExpirationDate()).thenReturn(DateUtils.addHours(new Date(), 1).getTime());
+        when(walletElection.getExpirationDate()).thenReturn(DateUtils.addHours(new Date(), 1).getTime());
+
+        when(tradingElection.receiveVote(any(), any())).thenReturn(Optional.empty());
+        when(speedElection.receiveVote(any(), any())).thenReturn(Optional.empty());
+        when(walletElection.receiveVote(any(), any())).thenReturn(Optional.empty());
+
+        voteEngine.getVoteQueue().add(new Vote(new Voter("mike", "twitch", "#stockstream", true), "!test", "#stockstream", new Date().getTime()));
+
+        voteEngine.multiThreadedPoll();
+
+        assertEquals(0, voteEngine.getVoteQueue().size());
+        assertEquals(1, voteEngine.getDeferredVoteCount());
+
+        when(gameClock.getNextGameEvent()).thenReturn(nextEvent);
+        when(tradingElection.getExpirationDate()).thenReturn(nextEvent.getNextEvent());
+
+        voteEngine.updateElectionExpirations();
+
+        assertEquals(0, voteEngine.getDeferredVoteCount());
+    }
+
 }
@@ -0,0 +1,40 @@
+package logic.wallet;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WalletStore for tests, writing under the store's monitor.
+ */
+public class InMemoryWalletStore implements WalletStore {
+
+    private static final Balance EMPTY = new Balance(0, 0);
+
+    private final Map<String, Balance> playerToBalance = new ConcurrentHashMap<>();
+
+    private final Map<String, String> playerToReferralCode = new ConcurrentHashMap<>();
+
+    @Override
+    public Balance read(final String player) {
+        return playerToBalance.getOrDefault(player, EMPTY);
+    }
+
+    @Override
+    public synchronized void transfer(final String fromPlayer, final String toPlayer, final double dollars) {
+        final Balance from = read(fromPlayer);
+        playerToBalance.put(fromPlayer, new Balance(from.getSentDollars() + dollars, from.getReceivedDollars()));
+
+        final Balance to = read(toPlayer);
+        playerToBalance.put(toPlayer, new Balance(to.getSentDollars(), to.getReceivedDollars() + dollars));
+    }
+
+    @Override
+    public void setReferralCode(final String player, final String referralCode) {
+        playerToReferralCode.put(player, referralCode);
+    }
+
+    public Map<String, Balance> getBalances() {
+        return playerToBalance;
+    }
+
+}
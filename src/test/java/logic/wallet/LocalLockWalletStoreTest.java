@@ -0,0 +1,147 @@
+package logic.wallet;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import stockstream.database.Wallet;
+import stockstream.database.WalletRegistry;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+public class LocalLockWalletStoreTest {
+
+    private static final int PLAYERS = 10;
+    private static final int TRANSFERS = 5000;
+    private static final int THREADS = 16;
+
+    private static class StoredWallet {
+        private final double sentDollars;
+        private final double receivedDollars;
+        private final String referralCode;
+
+        private StoredWallet(final double sentDollars, final double receivedDollars, final String referralCode) {
+            this.sentDollars = sentDollars;
+            this.receivedDollars = receivedDollars;
+            this.referralCode = referralCode;
+        }
+    }
+
+    private static final StoredWallet EMPTY = new StoredWallet(0, 0, null);
+
+    // Rows as the database would hold them; every read hands out a fresh Wallet, so a stale write would show up.
+    private final Map<String, StoredWallet> rows = new ConcurrentHashMap<>();
+
+    @Mock
+    private WalletRegistry walletRegistry;
+
+    @InjectMocks
+    private LocalLockWalletStore walletStore;
+
+    @Before
+    public void setupTest() {
+        MockitoAnnotations.initMocks(this);
+
+        when(walletRegistry.getWallet(anyString())).thenAnswer(invocation -> {
+            final String player = (String) invocation.getArguments()[0];
+            final StoredWallet row = rows.getOrDefault(player, EMPTY);
+            final Wallet wallet = new Wallet(player, 0d, 0d, 0d);
+            wallet.setSentDollars(row.sentDollars);
+            wallet.setReceivedDollars(row.receivedDollars);
+            wallet.setReferralCode(row.referralCode);
+            return wallet;
+        });
+        doAnswer(invocation -> {
+            for (final Object updated : (Collection<?>) invocation.getArguments()[0]) {
+                final Wallet wallet = (Wallet) updated;
+                rows.put(wallet.getPlatform_username(), new StoredWallet(wallet.getSentDollars(), wallet.getReceivedDollars(), wallet.getReferralCode()));
+            }
+            return null;
+        }).when(walletRegistry).updateWallets(any());
+    }
+
+    @Test
+    public void testTransfer_oneSend_expectBothWalletsWritten() {
+        walletStore.transfer("twitch:a", "twitch:b", 25);
+
+        assertEquals(25, walletStore.read("twitch:a").getSentDollars(), 0);
+        assertEquals(25, walletStore.read("twitch:b").getReceivedDollars(), 0);
+    }
+
+    @Test
+    public void testTransfer_toSelf_expectSentAndReceivedBothCounted() {
+        walletStore.transfer("twitch:a", "twitch:a", 10);
+
+        assertEquals(10, walletStore.read("twitch:a").getSentDollars(), 0);
+        assertEquals(10, walletStore.read("twitch:a").getReceivedDollars(), 0);
+    }
+
+    @Test
+    public void testTransfer_concurrentSendsAndReferrals_expectNoLostUpdates() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(TRANSFERS + PLAYERS);
+
+        final double[] expectedSent = new double[PLAYERS];
+        final double[] expectedReceived = new double[PLAYERS];
+        final Random random = new Random(42);
+        for (int i = 0; i < TRANSFERS; ++i) {
+            final int from = random.nextInt(PLAYERS);
+            final int to = random.nextInt(PLAYERS);
+            final int dollars = 1 + random.nextInt(50);
+            expectedSent[from] += dollars;
+            expectedReceived[to] += dollars;
+
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    walletStore.transfer("twitch:p" + from, "twitch:p" + to, dollars);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        for (int i = 0; i < PLAYERS; ++i) {
+            final int player = i;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    walletStore.setReferralCode("twitch:p" + player, "https://share.robinhood.com/p" + player);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        for (int i = 0; i < PLAYERS; ++i) {
+            final StoredWallet row = rows.get("twitch:p" + i);
+            assertEquals(expectedSent[i], row.sentDollars, 0);
+            assertEquals(expectedReceived[i], row.receivedDollars, 0);
+            assertEquals("https://share.robinhood.com/p" + i, row.referralCode);
+        }
+    }
+
+}
@@ -1,10 +1,12 @@
 package logic.wallet;
 
+import cache.WalletViewCache;
 import com.cheddar.robinhood.RobinhoodAPI;
 import com.cheddar.robinhood.data.Order;
 import com.cheddar.robinhood.exception.RobinhoodException;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -12,10 +14,12 @@ import stockstream.computer.OrderComputer;
 import stockstream.data.*;
 import stockstream.database.*;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyDouble;
 import static org.mockito.Matchers.anyInt;
@@ -38,6 +42,9 @@ public class WalletEngineTest {
     @Mock
     private RobinhoodAPI broker;
 
+    @Mock
+    private WalletViewCache walletViewCache;
+
     @InjectMocks
     private WalletEngine walletEngine;
 
@@ -58,6 +65,7 @@ public class WalletEngineTest {
         assertEquals(expectedOrder, returnedOrder);
         verify(walletOrderRegistry, times(1)).saveWalletOrder(any());
         verify(robinhoodOrderRegistry, times(1)).saveRobinhoodOrder(any());
+        verify(walletViewCache, times(1)).invalidate("twitch:michrob");
     }
 
     @Test
@@ -73,6 +81,7 @@ public class WalletEngineTest {
         assertEquals(expectedOrder, returnedOrder);
         verify(walletOrderRegistry, times(1)).saveWalletOrder(any());
         verify(robinhoodOrderRegistry, times(1)).saveRobinhoodOrder(any());
+        verify(walletViewCache, times(1)).invalidate("twitch:michrob");
     }
 
     @Test
@@ -106,9 +115,67 @@ public class WalletEngineTest {
         final WalletOrderResult walletOrderResult = walletEngine.processQuantityWalletOrder(new WalletCommand(WalletAction.BUY, 5, "AMZN", 900d),
                                                                                             new Voter("michrob", "twitch", "#stockstream", true));
 
+        final ArgumentCaptor<Collection> captor = ArgumentCaptor.forClass(Collection.class);
+
         assertEquals(OrderStatus.OK, walletOrderResult.getOrderStatus());
-        verify(walletOrderRegistry, times(5)).saveWalletOrder(any());
-        verify(robinhoodOrderRegistry, times(5)).saveRobinhoodOrder(any());
+        assertEquals(5, walletOrderResult.getExecutedShares());
+        verify(broker, times(1)).buyShares("AMZN", 5, 900d);
+        verify(walletOrderRegistry, times(1)).saveWalletOrders(captor.capture());
+        verify(walletOrderRegistry, never()).saveWalletOrder(any());
+        verify(robinhoodOrderRegistry, times(1)).saveRobinhoodOrder(any());
+        assertEquals(5, captor.getValue().size());
+        verify(walletViewCache, times(1)).invalidate("twitch:michrob");
+    }
+
+    @Test
+    public void testProcessQuantityWalletOrder_batchBuyQueued_expectEverySharePaidFor() throws RobinhoodException, ExecutionException {
+        final Order queuedOrder = new Order();
+        queuedOrder.setId("123");
+        queuedOrder.setState("queued");
+
+        when(broker.buyShares(any(), anyInt(), anyDouble())).thenReturn(queuedOrder);
+        when(orderComputer.preProcessWalletCommand(any(), any())).thenReturn(OrderStatus.OK);
+
+        final WalletOrderResult walletOrderResult = walletEngine.processQuantityWalletOrder(new WalletCommand(WalletAction.BUY, 5, "AMZN", 900d),
+                                                                                            new Voter("michrob", "twitch", "#stockstream", true));
+
+        final ArgumentCaptor<Collection> captor = ArgumentCaptor.forClass(Collection.class);
+
+        assertEquals(OrderStatus.OK, walletOrderResult.getOrderStatus());
+        assertEquals(5, walletOrderResult.getExecutedShares());
+        verify(walletOrderRegistry, times(1)).saveWalletOrders(captor.capture());
+        verify(robinhoodOrderRegistry, times(1)).saveRobinhoodOrder(any());
+        assertEquals(5, captor.getValue().size());
+    }
+
+    @Test
+    public void testProcessQuantityWalletOrder_batchBuyNoOrder_expectFailedResult() throws RobinhoodException, ExecutionException {
+        when(broker.buyShares(any(), anyInt(), anyDouble())).thenReturn(null);
+        when(orderComputer.preProcessWalletCommand(any(), any())).thenReturn(OrderStatus.OK);
+
+        final WalletOrderResult walletOrderResult = walletEngine.processQuantityWalletOrder(new WalletCommand(WalletAction.BUY, 5, "AMZN", 900d),
+                                                                                            new Voter("michrob", "twitch", "#stockstream", true));
+
+        assertEquals(OrderStatus.BROKER_EXCEPTION, walletOrderResult.getOrderStatus());
+        assertEquals(0, walletOrderResult.getExecutedShares());
+        verify(walletOrderRegistry, never()).saveWalletOrders(any());
+        verify(robinhoodOrderRegistry, never()).saveRobinhoodOrder(any());
+    }
+
+    @Test
+    public void testProcessQuantityWalletOrder_batchBuyFails_expectNothingArchived() throws RobinhoodException, ExecutionException {
+        when(broker.buyShares(any(), anyInt(), anyDouble())).thenThrow(new RobinhoodException("rejected"));
+        when(orderComputer.preProcessWalletCommand(any(), any())).thenReturn(OrderStatus.OK);
+
+        try {
+            walletEngine.processQuantityWalletOrder(new WalletCommand(WalletAction.BUY, 5, "AMZN", 900d),
+                                                    new Voter("michrob", "twitch", "#stockstream", true));
+        } catch (final RobinhoodException e) {
+            verify(walletOrderRegistry, never()).saveWalletOrders(any());
+            verify(robinhoodOrderRegistry, never()).saveRobinhoodOrder(any());
+            return;
+        }
+        fail("Expected the broker rejection to propagate");
     }
 
     @Test
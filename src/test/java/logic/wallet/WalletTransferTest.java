@@ -0,0 +1,154 @@
+package logic.wallet;
+
+import cache.WalletViewCache;
+import com.cheddar.robinhood.exception.RobinhoodException;
+import network.gateway.aws.MetricPublisher;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doThrow;
+
+public class WalletTransferTest {
+
+    private static final int PLAYERS = 10;
+    private static final int TRANSFERS = 5000;
+    private static final int THREADS = 16;
+
+    private final Path ledgerFile = Paths.get(System.getProperty("java.io.tmpdir"), "wallet-transfers-" + UUID.randomUUID() + ".jsonl");
+
+    @Mock
+    private MetricPublisher metricPublisher;
+
+    @Mock
+    private WalletViewCache walletViewCache;
+
+    @Spy
+    private InMemoryWalletStore walletStore = new InMemoryWalletStore();
+
+    @Spy
+    private TransferLedger transferLedger = new TransferLedger(ledgerFile);
+
+    @InjectMocks
+    private WalletEngine walletEngine;
+
+    @Before
+    public void setupTest() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        transferLedger.close();
+        Files.deleteIfExists(ledgerFile);
+    }
+
+    @Test
+    public void testTransferDollars_oneSend_expectSenderDebitedAndTargetCredited() throws Exception {
+        walletEngine.transferDollars("twitch:a", "twitch:b", 25);
+
+        assertEquals(25, walletStore.read("twitch:a").getSentDollars(), 0);
+        assertEquals(0, walletStore.read("twitch:a").getReceivedDollars(), 0);
+        assertEquals(25, walletStore.read("twitch:b").getReceivedDollars(), 0);
+        assertEquals(1, transferLedger.readTransfers().size());
+    }
+
+    @Test
+    public void testTransferDollars_ledgerAppendFails_expectTransferRefused() throws Exception {
+        doThrow(new IOException("disk full")).when(transferLedger).append(anyString(), anyString(), anyDouble());
+
+        try {
+            walletEngine.transferDollars("twitch:a", "twitch:b", 25);
+            fail("Expected the transfer to be refused");
+        } catch (final RobinhoodException e) {
+            assertEquals(0, walletStore.read("twitch:a").getSentDollars(), 0);
+            assertEquals(0, walletStore.read("twitch:b").getReceivedDollars(), 0);
+        }
+    }
+
+    @Test
+    public void testTransferDollars_walletWriteFails_expectLedgerReversed() throws Exception {
+        doThrow(new IllegalStateException("registry down")).when(walletStore).transfer(anyString(), anyString(), anyDouble());
+
+        try {
+            walletEngine.transferDollars("twitch:a", "twitch:b", 25);
+            fail("Expected the transfer to fail");
+        } catch (final RobinhoodException e) {
+            final Map<String, WalletStore.Balance> replayed = transferLedger.replayBalances();
+            assertEquals(2, transferLedger.readTransfers().size());
+            assertEquals(0, replayed.get("twitch:a").getSentDollars(), 0);
+            assertEquals(0, replayed.get("twitch:b").getReceivedDollars(), 0);
+        }
+    }
+
+    @Test
+    public void testTransferDollars_concurrentSends_expectDollarsConservedAndLedgerReplays() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(TRANSFERS);
+        final AtomicInteger failures = new AtomicInteger();
+
+        long expectedDollars = 0;
+        final Random random = new Random(42);
+        for (int i = 0; i < TRANSFERS; ++i) {
+            final String from = "twitch:p" + random.nextInt(PLAYERS);
+            final String to = "twitch:p" + random.nextInt(PLAYERS);
+            final int dollars = 1 + random.nextInt(50);
+            expectedDollars += dollars;
+
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    walletEngine.transferDollars(from, to, dollars);
+                } catch (final Exception e) {
+                    failures.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(0, failures.get());
+
+        final Map<String, WalletStore.Balance> balances = walletStore.getBalances();
+        final double totalSent = balances.values().stream().mapToDouble(WalletStore.Balance::getSentDollars).sum();
+        final double totalReceived = balances.values().stream().mapToDouble(WalletStore.Balance::getReceivedDollars).sum();
+
+        assertEquals(expectedDollars, totalSent, 0);
+        assertEquals(expectedDollars, totalReceived, 0);
+
+        final Map<String, WalletStore.Balance> replayed = transferLedger.replayBalances();
+        assertEquals(TRANSFERS, transferLedger.readTransfers().size());
+        balances.forEach((player, balance) -> {
+            assertEquals(replayed.get(player).getSentDollars(), balance.getSentDollars(), 0);
+            assertEquals(replayed.get(player).getReceivedDollars(), balance.getReceivedDollars(), 0);
+        });
+    }
+
+}
@@ -0,0 +1,146 @@
+package network.gateway.aws;
+
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import stockstream.logic.Scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricPublisherTest {
+
+    @Mock
+    private Scheduler scheduler;
+
+    @Spy
+    private InMemoryMetricSink metricSink = new InMemoryMetricSink();
+
+    @InjectMocks
+    private MetricPublisher metricPublisher;
+
+    @Before
+    public void setupTest() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void testFlush_repeatedValues_expectSingleStatisticSet() {
+        metricPublisher.publishMetric("TotalVoters", 3);
+        metricPublisher.publishMetric("TotalVoters", 7);
+
+        metricPublisher.flush();
+
+        final MetricDatum datum = flushedDatums().get("TotalVoters");
+        assertEquals(2, datum.getStatisticValues().getSampleCount(), 0);
+        assertEquals(10, datum.getStatisticValues().getSum(), 0);
+        assertEquals(3, datum.getStatisticValues().getMinimum(), 0);
+        assertEquals(7, datum.getStatisticValues().getMaximum(), 0);
+    }
+
+    @Test
+    public void testFlush_countersAndLatencies_expectRollups() {
+        metricPublisher.incrementCounter("VotesDropped", 2);
+        metricPublisher.incrementCounter("VotesDropped", 3);
+        for (int i = 1; i <= 100; ++i) {
+            metricPublisher.recordLatency("TallyLatency", i);
+        }
+
+        metricPublisher.flush();
+
+        final Map<String, MetricDatum> datums = flushedDatums();
+        assertEquals(5, datums.get("VotesDropped").getValue(), 0);
+        assertEquals(100, datums.get("TallyLatency").getStatisticValues().getSampleCount(), 0);
+        assertEquals(100, datums.get("TallyLatencyP99").getValue(), 0);
+        assertTrue(datums.get("TallyLatencyP50").getValue() >= 50);
+    }
+
+    @Test
+    public void testFlush_manyMetrics_expectBatchesWithinRequestLimit() {
+        for (int i = 0; i < 45; ++i) {
+            metricPublisher.publishMetric("Metric" + i, i);
+        }
+
+        metricPublisher.flush();
+
+        final List<List<MetricDatum>> batches = metricSink.getBatches();
+        assertEquals(3, batches.size());
+        batches.forEach(batch -> assertTrue(batch.size() <= MetricPublisher.MAX_DATUMS_PER_REQUEST));
+        assertEquals(45, batches.stream().mapToInt(List::size).sum());
+    }
+
+    @Test
+    public void testFlush_nothingRecordedSinceLastFlush_expectNoValueDatums() {
+        metricPublisher.publishMetric("TotalVoters", 3);
+        metricPublisher.flush();
+        metricSink.clear();
+
+        metricPublisher.flush();
+
+        assertTrue(metricSink.getBatches().isEmpty());
+    }
+
+    @Test
+    public void testFlush_zeroCounter_expectNoCounterDatum() {
+        metricPublisher.incrementCounter("VotesDropped", 0);
+
+        metricPublisher.flush();
+
+        assertTrue(metricSink.getBatches().isEmpty());
+    }
+
+    @Test
+    public void testFlush_concurrentRecording_expectNoSamplesLost() throws InterruptedException {
+        final int threads = 4;
+        final int samplesPerThread = 20000;
+        final List<Thread> recorders = new ArrayList<>();
+        for (int i = 0; i < threads; ++i) {
+            final Thread recorder = new Thread(() -> {
+                for (int j = 0; j < samplesPerThread; ++j) {
+                    metricPublisher.publishMetric("TotalVoters", 1);
+                    metricPublisher.incrementCounter("VotesDropped", 1);
+                }
+            });
+            recorders.add(recorder);
+            recorder.start();
+        }
+
+        for (int flushes = 0; flushes < 100 && recorders.stream().anyMatch(Thread::isAlive); ++flushes) {
+            metricPublisher.flush();
+            Thread.sleep(1);
+        }
+        for (final Thread recorder : recorders) {
+            recorder.join();
+        }
+        metricPublisher.flush();
+
+        final List<MetricDatum> datums = metricSink.getBatches().stream().flatMap(List::stream).collect(Collectors.toList());
+        final double sampleCount = datums.stream()
+                                         .filter(datum -> datum.getMetricName().equals("TotalVoters"))
+                                         .mapToDouble(datum -> datum.getStatisticValues().getSampleCount())
+                                         .sum();
+        final double counted = datums.stream()
+                                     .filter(datum -> datum.getMetricName().equals("VotesDropped"))
+                                     .mapToDouble(MetricDatum::getValue)
+                                     .sum();
+
+        assertEquals(threads * samplesPerThread, sampleCount, 0);
+        assertEquals(threads * samplesPerThread, counted, 0);
+    }
+
+    private Map<String, MetricDatum> flushedDatums() {
+        return metricSink.getBatches().stream()
+                         .flatMap(List::stream)
+                         .collect(Collectors.toMap(MetricDatum::getMetricName, datum -> datum));
+    }
+
+}
@@ -0,0 +1,105 @@
+package network.gateway.aws;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import stockstream.cache.InstrumentCache;
+import stockstream.data.OrderResult;
+import stockstream.data.OrderStatus;
+import stockstream.database.RobinhoodOrderRegistry;
+import stockstream.logic.PubSub;
+import stockstream.logic.Scheduler;
+import stockstream.util.JSONUtil;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class OrderPublisherTest {
+
+    @Mock
+    private PubSub pubSub;
+
+    @Mock
+    private InstrumentCache instrumentCache;
+
+    @Mock
+    private RobinhoodOrderRegistry robinhoodOrderRegistry;
+
+    @Mock
+    private MetricPublisher metricPublisher;
+
+    @Mock
+    private Scheduler scheduler;
+
+    @Spy
+    private LocalOrderNotificationSink orderNotificationSink = new LocalOrderNotificationSink();
+
+    @InjectMocks
+    private OrderPublisher orderPublisher;
+
+    @Before
+    public void setupTest() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void testPublishQueued_burstOfOrders_expectPublishedInOrder() {
+        orderPublisher.publishOrderResult(new OrderResult("BUY", "AAPL", OrderStatus.OK, null));
+        orderPublisher.publishOrderResult(new OrderResult("SELL", "FB", OrderStatus.OK, null));
+        orderPublisher.publishOrderResult(new OrderResult("BUY", "TSLA", OrderStatus.OK, null));
+
+        orderPublisher.publishQueued();
+
+        assertEquals(ImmutableList.of(toMessage("BUY AAPL"), toMessage("SELL FB"), toMessage("BUY TSLA")),
+                     orderNotificationSink.getPublishedMessages());
+
+        orderPublisher.publishMetrics();
+
+        verify(metricPublisher, times(1)).publishMetric("OrderNotificationsPublished", 3);
+        verify(metricPublisher, times(1)).publishMetric("OrderNotificationFailures", 0);
+    }
+
+    @Test
+    public void testPublishQueued_failedSends_expectFailuresCountedAndRestPublished() {
+        final CompletableFuture<Void> failedSend = new CompletableFuture<>();
+        failedSend.completeExceptionally(new IllegalStateException("SNS unavailable"));
+
+        doReturn(failedSend).when(orderNotificationSink).publish(toMessage("SELL FB"));
+        doThrow(new IllegalStateException("SNS unavailable")).when(orderNotificationSink).publish(toMessage("BUY TSLA"));
+
+        orderPublisher.publishOrderResult(new OrderResult("BUY", "AAPL", OrderStatus.OK, null));
+        orderPublisher.publishOrderResult(new OrderResult("SELL", "FB", OrderStatus.OK, null));
+        orderPublisher.publishOrderResult(new OrderResult("BUY", "TSLA", OrderStatus.OK, null));
+        orderPublisher.publishOrderResult(new OrderResult("SELL", "AMD", OrderStatus.OK, null));
+
+        orderPublisher.publishQueued();
+
+        assertEquals(ImmutableList.of(toMessage("BUY AAPL"), toMessage("SELL AMD")), orderNotificationSink.getPublishedMessages());
+
+        orderPublisher.publishMetrics();
+
+        verify(metricPublisher, times(1)).publishMetric("OrderNotificationsPublished", 2);
+        verify(metricPublisher, times(1)).publishMetric("OrderNotificationFailures", 2);
+    }
+
+    @Test
+    public void testPublishOrderResult_noAction_expectNothingQueued() {
+        orderPublisher.publishOrderResult(new OrderResult(null, "", OrderStatus.NOT_ENOUGH_VOTES, null));
+
+        orderPublisher.publishQueued();
+
+        assertEquals(ImmutableList.of(), orderNotificationSink.getPublishedMessages());
+        verifyZeroInteractions(robinhoodOrderRegistry);
+    }
+
+    private static String toMessage(final String order) {
+        return JSONUtil.serializeObject(order, false).get();
+    }
+
+}
@@ -0,0 +1,87 @@
+package network.gateway.aws;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import stockstream.database.PlayerVote;
+import stockstream.database.PlayerVoteRegistry;
+import stockstream.logic.Scheduler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class PlayerVoteWriterTest {
+
+    private final Path spillFile = Paths.get(System.getProperty("java.io.tmpdir"), "player-votes-" + UUID.randomUUID() + ".jsonl");
+
+    @Mock
+    private PlayerVoteRegistry playerVoteRegistry;
+
+    @Mock
+    private MetricPublisher metricPublisher;
+
+    @Mock
+    private Scheduler scheduler;
+
+    @InjectMocks
+    private PlayerVoteWriter playerVoteWriter = new PlayerVoteWriter(spillFile);
+
+    @Before
+    public void setupTest() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(spillFile);
+    }
+
+    @Test
+    public void testWriteNextChunk_registryHealthy_expectQueuedVotesSavedTogether() throws Exception {
+        playerVoteWriter.submit(Arrays.asList(createPlayerVote("twitch:mike"), createPlayerVote("twitch:bob")));
+
+        playerVoteWriter.writeNextChunk(createPlayerVote("twitch:sam"));
+
+        final ArgumentCaptor<Collection> savedVotes = ArgumentCaptor.forClass(Collection.class);
+        verify(playerVoteRegistry, times(1)).savePlayerVotes(savedVotes.capture());
+        assertEquals(3, savedVotes.getValue().size());
+        assertEquals(0, playerVoteWriter.getBacklog());
+        assertFalse(Files.exists(spillFile));
+    }
+
+    @Test
+    public void testWriteNextChunk_registryDownThenBack_expectSpillThenReplay() throws Exception {
+        final RuntimeException outage = new RuntimeException("database unavailable");
+        doThrow(outage).doThrow(outage).doThrow(outage).doAnswer(invocation -> null).when(playerVoteRegistry).savePlayerVotes(any());
+
+        playerVoteWriter.writeNextChunk(createPlayerVote("twitch:mike"));
+
+        assertTrue(Files.exists(spillFile));
+        assertEquals(1, Files.readAllLines(spillFile).size());
+
+        playerVoteWriter.writeNextChunk(createPlayerVote("twitch:bob"));
+
+        verify(playerVoteRegistry, times(5)).savePlayerVotes(any());
+        assertFalse(Files.exists(spillFile));
+    }
+
+    private static PlayerVote createPlayerVote(final String player) {
+        return new PlayerVote(0L, player, "1-1-2018", "BUY", "AAPL", 1000L, null);
+    }
+
+}
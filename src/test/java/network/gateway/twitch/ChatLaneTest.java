@@ -0,0 +1,88 @@
+package network.gateway.twitch;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ChatLaneTest {
+
+    private static final long BLOCKED_MILLIS = 100;
+
+    private final List<String> ran = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void testSubmit_fullLaneDropNewest_expectNewestDropped() throws InterruptedException {
+        final ChatLane chatLane = new ChatLane("Test", 1, 2, ChatLane.ShedPolicy.DROP_NEWEST);
+
+        fillLaneThenSubmit(chatLane, "first", "second", "third");
+
+        assertEquals(ImmutableList.of("blocker", "first", "second"), ran);
+    }
+
+    @Test
+    public void testSubmit_fullLaneDropOldest_expectOldestQueuedDropped() throws InterruptedException {
+        final ChatLane chatLane = new ChatLane("Test", 1, 2, ChatLane.ShedPolicy.DROP_OLDEST);
+
+        fillLaneThenSubmit(chatLane, "first", "second", "third");
+
+        assertEquals(ImmutableList.of("blocker", "second", "third"), ran);
+    }
+
+    @Test
+    public void testSnapshotAndReset_fullLane_expectDroppedAndQueueWaitCounted() throws InterruptedException {
+        final ChatLane chatLane = new ChatLane("Test", 1, 2, ChatLane.ShedPolicy.DROP_NEWEST);
+
+        fillLaneThenSubmit(chatLane, "first", "second", "third", "fourth");
+
+        final ChatLane.Stats stats = chatLane.snapshotAndReset();
+
+        assertEquals(3, stats.getHandled());
+        assertEquals(2, stats.getDropped());
+        assertEquals(0, stats.getQueueDepth());
+        assertTrue(stats.getMaxHandlerMillis() >= BLOCKED_MILLIS / 2);
+        // Two of the three handlers waited out the blocker, so the average wait is about two thirds of it.
+        assertTrue(stats.getAverageQueueWaitMillis() >= BLOCKED_MILLIS / 2);
+
+        final ChatLane.Stats resetStats = chatLane.snapshotAndReset();
+        assertEquals(0, resetStats.getHandled());
+        assertEquals(0, resetStats.getDropped());
+    }
+
+    /**
+     * Occupies the lane's only worker, submits the given handlers while it is busy, then releases it and waits for
+     * the lane to drain.
+     */
+    private void fillLaneThenSubmit(final ChatLane chatLane, final String... handlers) throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        chatLane.submit(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ran.add("blocker");
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        for (final String handler : handlers) {
+            chatLane.submit(() -> ran.add(handler));
+        }
+
+        Thread.sleep(BLOCKED_MILLIS);
+        release.countDown();
+
+        assertTrue(chatLane.shutdownAndAwait(5000));
+    }
+
+}
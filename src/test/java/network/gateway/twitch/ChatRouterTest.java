@@ -0,0 +1,82 @@
+package network.gateway.twitch;
+
+import com.google.common.collect.ImmutableList;
+import data.ChatMessage;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChatRouterTest {
+
+    private final List<String> activity = new ArrayList<>();
+    private final List<ChatMessage> commands = new ArrayList<>();
+    private final List<ChatMessage> ordersRequests = new ArrayList<>();
+    private final List<ChatMessage> unrouted = new ArrayList<>();
+
+    private ChatRouter chatRouter;
+
+    @Before
+    public void setupTest() {
+        chatRouter = new ChatRouter().withActivityListener(activity::add)
+                                     .withCommandListener(commands::add)
+                                     .withRoute("!orders", ordersRequests::add)
+                                     .withFallbackHandler(unrouted::add);
+    }
+
+    @Test
+    public void testRoute_chatter_expectOnlyActivityRecorded() {
+        assertFalse(chatRouter.route("hello chat", "mike", "#stockstream", false));
+
+        assertEquals(ImmutableList.of("mike"), activity);
+        assertTrue(commands.isEmpty());
+        assertTrue(unrouted.isEmpty());
+    }
+
+    @Test
+    public void testRoute_registeredCommand_expectRouteHandler() {
+        assertTrue(chatRouter.route("!ORDERS", "mike", "#stockstream", false));
+
+        assertEquals(1, commands.size());
+        assertEquals(1, ordersRequests.size());
+        assertTrue(unrouted.isEmpty());
+    }
+
+    @Test
+    public void testRoute_unregisteredCommand_expectFallbackHandler() {
+        assertTrue(chatRouter.route("!buy AAPL", "mike", "#stockstream", false));
+
+        assertEquals(1, unrouted.size());
+        final ChatMessage message = unrouted.get(0);
+        assertEquals('!', message.getPrefix());
+        assertEquals("buy", message.getCommand());
+        assertEquals(ImmutableList.of("AAPL"), message.getArgs());
+        assertEquals("!buy aapl", message.getNormalized());
+    }
+
+    @Test
+    public void testRoute_leadingWhitespaceAndTab_expectCommandRouted() {
+        assertTrue(chatRouter.route(" !buy\taapl", "mike", "#stockstream", false));
+
+        final ChatMessage message = unrouted.get(0);
+        assertEquals("!buy", message.getRoute());
+        assertEquals(ImmutableList.of("aapl"), message.getArgs());
+        assertEquals("!buy\taapl", message.getRaw());
+    }
+
+    @Test
+    public void testTokenize_mentionWithExtraSpaces_expectMention() {
+        assertTrue(chatRouter.route("#w   @Stonks_Guy ", "mike", "#stockstream", false));
+
+        final ChatMessage message = unrouted.get(0);
+        assertEquals("#w", message.getRoute());
+        assertEquals(Optional.of("stonks_guy"), message.getMention());
+    }
+
+}
@@ -0,0 +1,66 @@
+package network.gateway.twitch;
+
+import application.Config;
+import network.gateway.aws.MetricPublisher;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class MentionCoalescerTest {
+
+    @Mock
+    private OutboundChat outboundChat;
+
+    @Mock
+    private MetricPublisher metricPublisher;
+
+    @InjectMocks
+    private MentionCoalescer mentionCoalescer = new MentionCoalescer(60000);
+
+    @Before
+    public void setupTest() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void testReply_sameResponseWithinWindow_expectOneMessageMentioningEveryone() {
+        mentionCoalescer.reply("#stockstream", "a", "Have 0 pending orders: []");
+        mentionCoalescer.reply("#stockstream", "b", "Have 0 pending orders: []");
+        mentionCoalescer.reply("#stockstream", "a", "Have 0 pending orders: []");
+        mentionCoalescer.reply("#moneytesting", "c", "Have 0 pending orders: []");
+
+        mentionCoalescer.flushAll();
+
+        verify(outboundChat, times(1)).send("#stockstream", "@a @b Have 0 pending orders: []", OutboundChat.Priority.INFO);
+        verify(outboundChat, times(1)).send("#moneytesting", "@c Have 0 pending orders: []", OutboundChat.Priority.INFO);
+    }
+
+    @Test
+    public void testReply_tooManyMentionsForOneMessage_expectSplitUnderLimit() {
+        for (int i = 0; i < 100; ++i) {
+            mentionCoalescer.reply("#stockstream", "player" + i, "Buying Power: $100.00");
+        }
+
+        mentionCoalescer.flushAll();
+
+        final ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(outboundChat, atLeast(2)).send(any(), captor.capture(), any());
+
+        int mentions = 0;
+        for (final String message : captor.getAllValues()) {
+            assertTrue(message.length() <= Config.CHAT_MESSAGE_MAX_LENGTH);
+            assertTrue(message.endsWith("Buying Power: $100.00"));
+            mentions += message.split("@").length - 1;
+        }
+        assertEquals(100, mentions);
+    }
+
+}
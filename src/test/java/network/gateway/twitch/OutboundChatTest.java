@@ -0,0 +1,81 @@
+package network.gateway.twitch;
+
+import network.gateway.aws.MetricPublisher;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import stockstream.logic.Scheduler;
+import stockstream.twitch.TwitchChat;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class OutboundChatTest {
+
+    @Mock
+    private TwitchChat twitchChat;
+
+    @Mock
+    private MetricPublisher metricPublisher;
+
+    @Mock
+    private Scheduler scheduler;
+
+    @InjectMocks
+    private OutboundChat outboundChat;
+
+    @Before
+    public void setupTest() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void testSendNext_mixedPriorities_expectRoundResultFirst() {
+        outboundChat.send("#stockstream", "@a Own 0 shares of XYZ.", OutboundChat.Priority.INFO);
+        outboundChat.send("#stockstream", "@b Order successfully placed!", OutboundChat.Priority.WALLET_ORDER);
+        outboundChat.broadcast("Bought 1 share of XYZ", OutboundChat.Priority.ROUND_RESULT);
+
+        assertTrue(outboundChat.sendNext());
+        verify(twitchChat, times(1)).broadcastMessage("Bought 1 share of XYZ");
+
+        assertTrue(outboundChat.sendNext());
+        verify(twitchChat, times(1)).enqueueMessage("#stockstream", "@b Order successfully placed!");
+
+        assertTrue(outboundChat.sendNext());
+        verify(twitchChat, times(1)).enqueueMessage("#stockstream", "@a Own 0 shares of XYZ.");
+
+        assertFalse(outboundChat.sendNext());
+    }
+
+    @Test
+    public void testSendNext_repliesToSameChannel_expectMergedPerChannel() {
+        outboundChat.send("#stockstream", "@a one", OutboundChat.Priority.INFO);
+        outboundChat.send("#moneytesting", "@b two", OutboundChat.Priority.INFO);
+        outboundChat.send("#stockstream", "@c three", OutboundChat.Priority.INFO);
+
+        outboundChat.sendNext();
+        outboundChat.sendNext();
+
+        verify(twitchChat, times(1)).enqueueMessage("#stockstream", "@a one | @c three");
+        verify(twitchChat, times(1)).enqueueMessage("#moneytesting", "@b two");
+        assertFalse(outboundChat.sendNext());
+    }
+
+    @Test
+    public void testSendNext_mergeWouldPassLimit_expectSeparateMessages() {
+        final String longReply = new String(new char[300]).replace('\0', 'x');
+        outboundChat.send("#stockstream", longReply, OutboundChat.Priority.INFO);
+        outboundChat.send("#stockstream", longReply, OutboundChat.Priority.INFO);
+
+        outboundChat.sendNext();
+        outboundChat.sendNext();
+
+        verify(twitchChat, times(2)).enqueueMessage("#stockstream", longReply);
+        verify(metricPublisher, times(2)).recordLatency(any(String.class), anyLong());
+    }
+
+}
@@ -0,0 +1,83 @@
+package utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FairKeyedExecutorTest {
+
+    @Test
+    public void testSubmit_sameKey_expectJobsRunInOrder() throws InterruptedException {
+        final FairKeyedExecutor executor = new FairKeyedExecutor("test", 4);
+        final List<Integer> ran = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch done = new CountDownLatch(100);
+
+        for (int i = 0; i < 100; ++i) {
+            final int job = i;
+            executor.submit("p1", () -> {
+                ran.add(job);
+                done.countDown();
+                return false;
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(i, (int) ran.get(i));
+        }
+    }
+
+    @Test
+    public void testSubmit_longJobOnSingleWorker_expectOtherKeysTakeTurns() throws InterruptedException {
+        final FairKeyedExecutor executor = new FairKeyedExecutor("test", 1);
+        final List<String> steps = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(2);
+
+        executor.submit("big", new FairKeyedExecutor.Job() {
+            private int remaining = 50;
+
+            @Override
+            public boolean runStep() {
+                if (remaining == 50) {
+                    started.countDown();
+                    await(release);
+                }
+                steps.add("big");
+                if (--remaining > 0) {
+                    return true;
+                }
+                done.countDown();
+                return false;
+            }
+        });
+
+        started.await();
+        executor.submit("small", () -> {
+            steps.add("small");
+            done.countDown();
+            return false;
+        });
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals("small", steps.get(1));
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package utils;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SymbolTrieTest {
+
+    private final SymbolTrie symbolTrie = new SymbolTrie(ImmutableSet.of("A", "AA", "AAPL", "AMD", "BRK.B", "F"));
+
+    @Test
+    public void testFind_exactSymbol_expectCanonicalInstance() {
+        final String aapl = symbolTrie.find("AAPL");
+
+        assertEquals("AAPL", aapl);
+        assertSame(aapl, symbolTrie.find("aapl"));
+    }
+
+    @Test
+    public void testFind_mixedCaseWithinMessage_expectSymbol() {
+        assertEquals("AMD", symbolTrie.find("!buy aMd", 5, 8));
+        assertEquals("BRK.B", symbolTrie.find("!brk.b", 1, 6));
+    }
+
+    @Test
+    public void testFind_prefixesAndUnknowns_expectOnlySymbols() {
+        assertEquals("A", symbolTrie.find("a"));
+        assertEquals("AA", symbolTrie.find("aa"));
+        assertNull(symbolTrie.find("AAP"));
+        assertNull(symbolTrie.find("AAPLE"));
+        assertNull(symbolTrie.find("TSLA"));
+        assertNull(symbolTrie.find(""));
+    }
+
+    @Test
+    public void testEmpty_expectNoMatches() {
+        assertTrue(SymbolTrie.EMPTY.isEmpty());
+        assertNull(SymbolTrie.EMPTY.find("AAPL"));
+        assertEquals(6, symbolTrie.size());
+    }
+
+}